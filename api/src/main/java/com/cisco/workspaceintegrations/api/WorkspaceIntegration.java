@@ -1,15 +1,19 @@
 package com.cisco.workspaceintegrations.api;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.cisco.workspaceintegrations.api.core.ExecutorFactory;
 import com.cisco.workspaceintegrations.api.core.HttpJWKSetProvider;
 import com.cisco.workspaceintegrations.api.core.ProvisioningChangedListener;
 import com.cisco.workspaceintegrations.api.core.WebexHttp;
+import com.cisco.workspaceintegrations.api.core.WebexHttpOptions;
 import com.cisco.workspaceintegrations.api.devices.DevicesApi;
 import com.cisco.workspaceintegrations.api.http.Http;
 import com.cisco.workspaceintegrations.api.integration.IntegrationApi;
@@ -24,24 +28,32 @@ import com.cisco.workspaceintegrations.common.integration.IntegrationUpdate;
 import com.cisco.workspaceintegrations.common.messages.Message;
 import com.cisco.workspaceintegrations.common.oauth.OAuthClient;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * The WorkspaceIntegration class provides a convenient abstraction on a workspace integration.
  * <p>
  * On init:
  * <p>
  * - Decodes an activation code from Control Hub
+ * - Opens connections to the OAuth, developer API and JWT key set hosts in parallel
  * - Updates the Webex backend with the status of the integration
  * - Constructs developer API abstractions or the raw WebexHttp class for accessing the developer.webex.com APIs
  */
-public class WorkspaceIntegration {
+public class WorkspaceIntegration implements AutoCloseable {
 
     private static final Logger LOG = LoggerFactory.getLogger(WorkspaceIntegration.class);
+    private static final Duration PREWARM_TIMEOUT = Duration.ofSeconds(5);
 
     private final Http http;
 
     private final JwtDecoder jwtDecoder;
     private final OAuthClient oauthClient;
     private final ProvisioningChangedListener provisioningChangedListener;
+    private final ExecutorFactory executorFactory;
+    private final WebexHttpOptions webexHttpOptions;
+    private final ExecutorService httpExecutor;
+    private final Thread shutdownHook;
     private WebexHttp webexHttp;
     private IntegrationApi integrationApi;
     private WorkspacesApi workspacesApi;
@@ -58,19 +70,98 @@ public class WorkspaceIntegration {
         this(oauthClient, new Http(userAgent), provisioningChangedListener);
     }
 
+    /**
+     * Runs the queue poller and the HTTP client on threads from the given factory, e.g.
+     * {@link ExecutorFactory#virtualThreads()} on Java 21 or later.
+     */
+    public WorkspaceIntegration(String userAgent,
+                                OAuthClient oauthClient,
+                                ProvisioningChangedListener provisioningChangedListener,
+                                ExecutorFactory executorFactory) {
+        this(oauthClient, userAgent, provisioningChangedListener, executorFactory, executorFactory.newExecutor("webex-http"));
+    }
+
+    private WorkspaceIntegration(OAuthClient oauthClient,
+                                 String userAgent,
+                                 ProvisioningChangedListener provisioningChangedListener,
+                                 ExecutorFactory executorFactory,
+                                 ExecutorService httpExecutor) {
+        this(oauthClient,
+             Http.builder(userAgent).executor(httpExecutor).build(),
+             provisioningChangedListener,
+             executorFactory,
+             WebexHttpOptions.defaults(),
+             httpExecutor);
+    }
+
     public WorkspaceIntegration(OAuthClient oauthClient,
                                 Http http,
                                 ProvisioningChangedListener provisioningChangedListener) {
+        this(oauthClient, http, provisioningChangedListener, ExecutorFactory.platformThreads());
+    }
+
+    public WorkspaceIntegration(OAuthClient oauthClient,
+                                Http http,
+                                ProvisioningChangedListener provisioningChangedListener,
+                                ExecutorFactory executorFactory) {
+        this(oauthClient, http, provisioningChangedListener, executorFactory, WebexHttpOptions.defaults());
+    }
+
+    public WorkspaceIntegration(OAuthClient oauthClient,
+                                Http http,
+                                ProvisioningChangedListener provisioningChangedListener,
+                                ExecutorFactory executorFactory,
+                                WebexHttpOptions webexHttpOptions) {
+        this(oauthClient, http, provisioningChangedListener, executorFactory, webexHttpOptions, null);
+    }
+
+    /**
+     * @param httpExecutor The executor of the HTTP client, if created here and so to be shut down on close
+     */
+    private WorkspaceIntegration(OAuthClient oauthClient,
+                                 Http http,
+                                 ProvisioningChangedListener provisioningChangedListener,
+                                 ExecutorFactory executorFactory,
+                                 WebexHttpOptions webexHttpOptions,
+                                 ExecutorService httpExecutor) {
         this.oauthClient = oauthClient;
         this.http = http;
         this.provisioningChangedListener = provisioningChangedListener;
+        this.executorFactory = checkNotNull(executorFactory);
+        this.webexHttpOptions = checkNotNull(webexHttpOptions);
+        this.httpExecutor = httpExecutor;
         this.jwtDecoder = new JwtDecoder(new HttpJWKSetProvider(http));
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        this.shutdownHook = new Thread(() -> {
             LOG.info("Shutdown detected");
-            if (queuePoller != null) {
-                queuePoller.stop();
-            }
-        }));
+            stop();
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Stops the queue poller and the background token refresh, and shuts down the HTTP client threads if they were
+     * created by this integration
+     */
+    @Override
+    public void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ex) {
+            // Already shutting down, the hook does the same
+        }
+        stop();
+    }
+
+    private synchronized void stop() {
+        if (queuePoller != null) {
+            queuePoller.stop();
+        }
+        if (webexHttp != null) {
+            webexHttp.close();
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdown();
+        }
     }
 
     /**
@@ -111,6 +202,10 @@ public class WorkspaceIntegration {
         return oauthClient;
     }
 
+    public ExecutorFactory getExecutorFactory() {
+        return executorFactory;
+    }
+
     public WebexHttp getWebexHttp() {
         return webexHttp;
     }
@@ -147,7 +242,8 @@ public class WorkspaceIntegration {
                         + "IntegrationUpdate.builder().queue(enabledQueue()).build()"
                 );
             }
-            queuePoller = new QueuePoller(webexHttp, queueUrl, consumer, provisioningChangedListener, jwtDecoder);
+            queuePoller = new QueuePoller(webexHttp, queueUrl, consumer, provisioningChangedListener, jwtDecoder,
+                                          executorFactory);
         }
         return queuePoller;
     }
@@ -155,14 +251,22 @@ public class WorkspaceIntegration {
     public QueuePoller getQueuePoller(URI queueUrl, Consumer<List<Message>> consumer) {
         if (queuePoller == null) {
             this.queueUrl = queueUrl;
-            queuePoller = new QueuePoller(webexHttp, queueUrl, consumer, provisioningChangedListener, jwtDecoder);
+            queuePoller = new QueuePoller(webexHttp, queueUrl, consumer, provisioningChangedListener, jwtDecoder,
+                                          executorFactory);
         }
         return queuePoller;
     }
 
     private InitResult initApis(Provisioning provisioning, IntegrationUpdate initialUpdate) {
         this.provisioning = provisioning;
-        this.webexHttp = new WebexHttp(http, oauthClient, provisioning, provisioningChangedListener);
+        if (this.webexHttp != null) {
+            this.webexHttp.close();
+        }
+        this.webexHttp = new WebexHttp(http, oauthClient, provisioning, provisioningChangedListener,
+                                       webexHttpOptions, executorFactory);
+        // Handshake with the hosts of the later calls while the tokens are fetched, rather than one after the other
+        http.prewarm(List.of(provisioning.getWebexApisBaseUrl(),
+                             JwtDecoder.keySetUrl(provisioning.getRegion())), PREWARM_TIMEOUT);
         this.webexHttp.initTokens();
         this.integrationApi = new IntegrationApi(webexHttp);
         this.workspacesApi = new WorkspacesApi(webexHttp);
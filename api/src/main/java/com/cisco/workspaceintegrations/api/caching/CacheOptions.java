@@ -0,0 +1,191 @@
+package com.cisco.workspaceintegrations.api.caching;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Tuning of an {@link InMemoryCache}
+ */
+public final class CacheOptions {
+
+    private final Duration ttl;
+    private final int maxSize;
+    private final Duration refreshAfter;
+    private final Executor refreshExecutor;
+    private final Duration negativeTtl;
+    private final Duration staleIfError;
+    private final String name;
+    private final Consumer<CacheStatistics> statsListener;
+    private final Duration statsInterval;
+    private final Clock clock;
+
+    private CacheOptions(Builder builder) {
+        this.ttl = builder.ttl;
+        this.maxSize = builder.maxSize;
+        this.refreshAfter = builder.refreshAfter;
+        this.refreshExecutor = builder.refreshExecutor;
+        this.negativeTtl = builder.negativeTtl;
+        this.staleIfError = builder.staleIfError;
+        this.name = builder.name;
+        this.statsListener = builder.statsListener;
+        this.statsInterval = builder.statsInterval;
+        this.clock = builder.clock;
+        checkArgument(refreshAfter == null || refreshAfter.compareTo(ttl) < 0, "refreshAfter must be shorter than the ttl");
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static CacheOptions defaults() {
+        return builder().build();
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public Optional<Duration> getRefreshAfter() {
+        return Optional.ofNullable(refreshAfter);
+    }
+
+    public Optional<Executor> getRefreshExecutor() {
+        return Optional.ofNullable(refreshExecutor);
+    }
+
+    public Optional<Duration> getNegativeTtl() {
+        return Optional.ofNullable(negativeTtl);
+    }
+
+    public Optional<Duration> getStaleIfError() {
+        return Optional.ofNullable(staleIfError);
+    }
+
+    public Optional<String> getName() {
+        return Optional.ofNullable(name);
+    }
+
+    public Optional<Consumer<CacheStatistics>> getStatsListener() {
+        return Optional.ofNullable(statsListener);
+    }
+
+    public Duration getStatsInterval() {
+        return statsInterval;
+    }
+
+    public Optional<Clock> getClock() {
+        return Optional.ofNullable(clock);
+    }
+
+    public static final class Builder {
+        private Duration ttl = Duration.ofMinutes(5);
+        private int maxSize = 10000;
+        private Duration refreshAfter;
+        private Executor refreshExecutor;
+        private Duration negativeTtl;
+        private Duration staleIfError;
+        private String name;
+        private Consumer<CacheStatistics> statsListener;
+        private Duration statsInterval;
+        private Clock clock;
+
+        private Builder() {
+        }
+
+        /**
+         * How long an entry is kept after it was loaded. Defaults to 5 minutes.
+         * With refresh ahead enabled, this is the upper bound on how stale a served value can be.
+         */
+        public Builder ttl(Duration val) {
+            ttl = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Defaults to 10000 entries
+         */
+        public Builder maxSize(int val) {
+            checkArgument(val > 0, "maxSize must be positive");
+            maxSize = val;
+            return this;
+        }
+
+        /**
+         * Enables refresh ahead: the first read of an entry older than this triggers a reload in the background
+         * while the current value is still returned. If the reload fails the current value is kept, but only until
+         * the ttl, see {@link #staleIfError(Duration)} to serve it longer. Must be shorter than the ttl.
+         * Disabled by default.
+         */
+        public Builder refreshAfter(Duration val) {
+            refreshAfter = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * The executor running background reloads and the loads of getAll. Defaults to a small pool of daemon threads
+         * shared by all caches.
+         */
+        public Builder refreshExecutor(Executor val) {
+            refreshExecutor = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Enables negative caching: a load failing with 404 Not Found is remembered for this long, and lookups of the
+         * key fail straight away instead of calling the API again. Disabled by default.
+         */
+        public Builder negativeTtl(Duration val) {
+            negativeTtl = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Enables serving stale values on errors: once an entry has expired, it is kept for this long, and returned
+         * when loading a fresh value fails, other than with 404 Not Found. Disabled by default.
+         */
+        public Builder staleIfError(Duration val) {
+            staleIfError = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * The name reported in the {@link CacheStatistics}. Defaults to the name of the cache class.
+         */
+        public Builder name(String val) {
+            name = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Reports the {@link CacheStatistics} to the listener at a fixed interval, e.g. to feed a metrics system
+         */
+        public Builder statsListener(Consumer<CacheStatistics> listener, Duration interval) {
+            statsListener = checkNotNull(listener);
+            statsInterval = checkNotNull(interval);
+            checkArgument(!interval.isNegative() && !interval.isZero(), "The stats interval must be positive");
+            return this;
+        }
+
+        /**
+         * The clock that entry ages are measured with. Defaults to the system clock.
+         */
+        public Builder clock(Clock val) {
+            clock = checkNotNull(val);
+            return this;
+        }
+
+        public CacheOptions build() {
+            return new CacheOptions(this);
+        }
+    }
+}
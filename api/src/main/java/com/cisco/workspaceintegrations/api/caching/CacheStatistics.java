@@ -0,0 +1,37 @@
+package com.cisco.workspaceintegrations.api.caching;
+
+import java.time.Duration;
+
+/**
+ * A snapshot of the counters of an {@link InMemoryCache} since it was created
+ *
+ * @param name              The cache name
+ * @param size              The current number of entries
+ * @param hitCount          Lookups served from the cache
+ * @param missCount         Lookups that had to load
+ * @param negativeHitCount  Lookups answered from the negative cache, i.e. failed without calling the API
+ * @param loadSuccessCount  Successful loads, including background refreshes
+ * @param loadFailureCount  Failed loads
+ * @param totalLoadTime     Time spent loading
+ * @param evictionCount     Entries evicted due to size or expiry
+ */
+public record CacheStatistics(String name,
+                              long size,
+                              long hitCount,
+                              long missCount,
+                              long negativeHitCount,
+                              long loadSuccessCount,
+                              long loadFailureCount,
+                              Duration totalLoadTime,
+                              long evictionCount) {
+
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public Duration averageLoadPenalty() {
+        long loads = loadSuccessCount + loadFailureCount;
+        return loads == 0 ? Duration.ZERO : totalLoadTime.dividedBy(loads);
+    }
+}
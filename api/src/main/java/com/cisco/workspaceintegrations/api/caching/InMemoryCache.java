@@ -1,37 +1,516 @@
 package com.cisco.workspaceintegrations.api.caching;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.google.common.base.Ticker;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.util.concurrent.UncheckedExecutionException;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cisco.workspaceintegrations.api.http.HttpException;
+import com.cisco.workspaceintegrations.api.jfr.CacheLoadEvent;
+import com.cisco.workspaceintegrations.common.json.Json;
 
 import static com.cisco.workspaceintegrations.common.Utils.sneakyThrow;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 public abstract class InMemoryCache<T> {
 
-    private final Cache<String, T> cache;
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryCache.class);
+    private static final int DEFAULT_REFRESH_THREADS = 4;
+    private static final int DEFAULT_LOAD_CONCURRENCY = 20;
+    private static final int SNAPSHOT_MAGIC = 0x57494353;
+    private static final byte SNAPSHOT_VERSION = 1;
+    private static final ScheduledExecutorService STATS_REPORTER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-stats");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final Class<T> valueType;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LoadingCache<String, Entry<T>> cache;
+    private final Cache<String, Exception> negativeCache;
+    private final Cache<String, T> staleCache;
+    private final LongAdder negativeHits = new LongAdder();
+    private final Executor loadExecutor;
+    private final ScheduledFuture<?> statsReporting;
 
     public InMemoryCache() {
-        this(Duration.ofMinutes(5), 10000);
+        this(CacheOptions.defaults());
     }
 
     public InMemoryCache(Duration ttl, int maxSize) {
-        this.cache = CacheBuilder.newBuilder()
-                                 .recordStats()
-                                 .maximumSize(maxSize)
-                                 .expireAfterWrite(ttl)
-                                 .build();
+        this(CacheOptions.builder().ttl(ttl).maxSize(maxSize).build());
+    }
+
+    public InMemoryCache(CacheOptions options) {
+        this(null, options);
+    }
+
+    /**
+     * @param valueType The type of the cached values, required to save and restore snapshots
+     */
+    public InMemoryCache(Class<T> valueType, CacheOptions options) {
+        this.name = options.getName().orElseGet(() -> getClass().getSimpleName());
+        this.valueType = valueType;
+        this.ttlMillis = options.getTtl().toMillis();
+        this.clock = options.getClock().orElseGet(Clock::systemUTC);
+        Ticker ticker = options.getClock().map(InMemoryCache::ticker).orElseGet(Ticker::systemTicker);
+        this.staleCache = options.getStaleIfError()
+                                 .map(grace -> CacheBuilder.newBuilder()
+                                                           .ticker(ticker)
+                                                           .maximumSize(options.getMaxSize())
+                                                           .expireAfterWrite(grace)
+                                                           .<String, T>build())
+                                 .orElse(null);
+        CacheBuilder<String, Entry<T>> builder = CacheBuilder.newBuilder()
+                                                             .ticker(ticker)
+                                                             .recordStats()
+                                                             .maximumSize(options.getMaxSize())
+                                                             .expireAfterWrite(options.getTtl())
+                                                             .removalListener(this::onRemoval);
+        this.loadExecutor = options.getRefreshExecutor().orElse(DefaultRefreshExecutor.INSTANCE);
+        CacheLoader<String, Entry<T>> loader = CacheLoader.from(key -> new Entry<>(recordedLoad(key), clock.millis()));
+        if (options.getRefreshAfter().isPresent()) {
+            builder.refreshAfterWrite(options.getRefreshAfter().get());
+            // Reloads run in the background, the current value is served meanwhile and kept if the reload fails
+            loader = CacheLoader.asyncReloading(loader, loadExecutor);
+        }
+        this.cache = builder.build(loader);
+        this.negativeCache = options.getNegativeTtl()
+                                    .map(ttl -> CacheBuilder.newBuilder()
+                                                            .maximumSize(options.getMaxSize())
+                                                            .expireAfterWrite(ttl)
+                                                            .<String, Exception>build())
+                                    .orElse(null);
+        this.statsReporting = options.getStatsListener().map(listener -> STATS_REPORTER.scheduleAtFixedRate(
+            () -> reportStats(listener),
+            options.getStatsInterval().toMillis(),
+            options.getStatsInterval().toMillis(),
+            TimeUnit.MILLISECONDS
+        )).orElse(null);
     }
 
     public T get(String key) {
+        if (negativeCache != null) {
+            Exception notFound = negativeCache.getIfPresent(key);
+            if (notFound != null) {
+                negativeHits.increment();
+                return sneakyThrow(notFound);
+            }
+        }
         try {
-            return this.cache.get(key, () -> load(key));
+            Entry<T> entry = cache.get(key);
+            if (isExpired(entry)) {
+                // Only restored entries outlive their TTL, as the cache counts it from when they were restored
+                if (cache.asMap().remove(key, entry) && staleCache != null) {
+                    staleCache.put(key, entry.value());
+                }
+                entry = cache.get(key);
+            }
+            return entry.value();
         } catch (UncheckedExecutionException | ExecutionException e) {
-            return sneakyThrow(e);
+            rememberIfNotFound(key, e);
+            return staleIfError(key, e).orElseGet(() -> sneakyThrow(e));
+        }
+    }
+
+    /**
+     * Gets all the values, loading missing ones in parallel, with at most 20 loads in flight
+     *
+     * @see #getAll(Collection, int)
+     */
+    public Map<String, T> getAll(Collection<String> keys) {
+        return getAll(keys, DEFAULT_LOAD_CONCURRENCY);
+    }
+
+    /**
+     * Gets all the values, loading missing ones in parallel through {@link #loadAsync(String)}. Keys failing to load
+     * are logged and left out of the result, so a single deleted entity does not fail the whole batch.
+     *
+     * @param maxConcurrency The max number of loads in flight
+     * @return The values by key, in the iteration order of the keys
+     */
+    public Map<String, T> getAll(Collection<String> keys, int maxConcurrency) {
+        checkArgument(maxConcurrency > 0, "maxConcurrency must be positive");
+        Map<String, T> present = new HashMap<>();
+        cache.getAllPresent(keys).forEach((key, entry) -> {
+            if (!isExpired(entry)) {
+                present.put(key, entry.value());
+            }
+        });
+        Map<String, CompletableFuture<T>> loads = new HashMap<>();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        try {
+            for (String key : keys) {
+                if (present.containsKey(key) || loads.containsKey(key) || isKnownMissing(key)) {
+                    continue;
+                }
+                permits.acquire();
+                CompletableFuture<T> load;
+                try {
+                    load = recordedLoadAsync(key);
+                } catch (RuntimeException ex) {
+                    load = CompletableFuture.failedFuture(ex);
+                }
+                loads.put(key, load.whenComplete((value, error) -> permits.release()));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            loads.values().forEach(load -> load.cancel(true));
+            throw new IllegalStateException("Interrupted while loading cache entries", ex);
+        }
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (present.containsKey(key)) {
+                result.put(key, present.get(key));
+                continue;
+            }
+            CompletableFuture<T> load = loads.get(key);
+            if (load == null) {
+                continue;
+            }
+            try {
+                T value = load.join();
+                cache.put(key, new Entry<>(value, clock.millis()));
+                result.put(key, value);
+            } catch (CompletionException | CancellationException ex) {
+                rememberIfNotFound(key, ex);
+                LOG.warn("Unable to load cache entry {}", key, ex.getCause() != null ? ex.getCause() : ex);
+                staleIfError(key, ex).ifPresent(value -> result.put(key, value));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The cached value, without loading it when missing
+     */
+    public Optional<T> getIfPresent(String key) {
+        return Optional.ofNullable(cache.getIfPresent(key)).filter(entry -> !isExpired(entry)).map(Entry::value);
+    }
+
+    /**
+     * Replaces the cached value with an updated copy, without loading it when missing. The update counts as a write,
+     * so restarts the TTL of the entry.
+     *
+     * @return The updated value, or empty if none was cached
+     */
+    public Optional<T> updateIfPresent(String key, UnaryOperator<T> update) {
+        Entry<T> updated = cache.asMap().computeIfPresent(
+            key, (k, entry) -> isExpired(entry) ? null : new Entry<>(update.apply(entry.value()), clock.millis()));
+        return Optional.ofNullable(updated).map(Entry::value);
+    }
+
+    public void put(String key, T value) {
+        cache.put(key, new Entry<>(value, clock.millis()));
+        if (negativeCache != null) {
+            negativeCache.invalidate(key);
+        }
+        if (staleCache != null) {
+            staleCache.invalidate(key);
+        }
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+        if (negativeCache != null) {
+            negativeCache.invalidate(key);
+        }
+        if (staleCache != null) {
+            staleCache.invalidate(key);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        if (negativeCache != null) {
+            negativeCache.invalidateAll();
+        }
+        if (staleCache != null) {
+            staleCache.invalidateAll();
+        }
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStatistics stats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(
+            name,
+            cache.size(),
+            stats.hitCount(),
+            stats.missCount(),
+            negativeHits.sum(),
+            stats.loadSuccessCount(),
+            stats.loadExceptionCount(),
+            Duration.ofNanos(stats.totalLoadTime()),
+            stats.evictionCount()
+        );
+    }
+
+    /**
+     * Writes the cached entries, with the time each was loaded, to a compact binary file. The snapshot is written to a
+     * temporary file first and then atomically moved in place, so a crash never leaves a truncated snapshot behind.
+     *
+     * @return The number of entries written
+     */
+    @SuppressFBWarnings("PATH_TRAVERSAL_IN")
+    public int saveSnapshot(Path file) throws IOException {
+        checkSnapshotsSupported();
+        Path target = file.toAbsolutePath();
+        // A sibling of the target, as an atomic move cannot cross file systems
+        Path temporary = Files.createTempFile(target.resolveSibling(""), "cache-snapshot", ".tmp");
+        try {
+            int count = 0;
+            try (FileChannel channel = FileChannel.open(temporary, WRITE);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeByte(SNAPSHOT_VERSION);
+                for (Map.Entry<String, Entry<T>> entry : cache.asMap().entrySet()) {
+                    byte[] key = entry.getKey().getBytes(UTF_8);
+                    byte[] value = Json.objectMapper().writeValueAsBytes(entry.getValue().value());
+                    out.writeLong(entry.getValue().writtenAt());
+                    out.writeInt(key.length);
+                    out.write(key);
+                    out.writeInt(value.length);
+                    out.write(value);
+                    count++;
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, target, ATOMIC_MOVE, REPLACE_EXISTING);
+            return count;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Restores the entries of a snapshot written by {@link #saveSnapshot(Path)}, typically at startup so a restarted
+     * node comes up warm. Entries older than the TTL are skipped and will be loaded again on first use, the others
+     * expire when their original TTL runs out. Entries already in the cache are kept.
+     *
+     * @return The number of entries restored
+     */
+    public int loadSnapshot(Path file) throws IOException {
+        checkSnapshotsSupported();
+        long now = clock.millis();
+        int restored = 0;
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < Integer.BYTES + 1 || buffer.getInt() != SNAPSHOT_MAGIC || buffer.get() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a cache snapshot: " + file);
+            }
+            while (buffer.hasRemaining()) {
+                long writtenAt = buffer.getLong();
+                String key = UTF_8.decode(slice(buffer, buffer.getInt())).toString();
+                ByteBuffer value = slice(buffer, buffer.getInt());
+                if (now - writtenAt >= ttlMillis) {
+                    continue;
+                }
+                try (InputStream in = new ByteBufferBackedInputStream(value)) {
+                    if (cache.asMap().putIfAbsent(key, new Entry<>(Json.objectMapper().readValue(in, valueType), writtenAt)) == null) {
+                        restored++;
+                    }
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IOException("Truncated cache snapshot: " + file, ex);
+        }
+        LOG.info("Restored {} entries to {} from {}", restored, name, file);
+        return restored;
+    }
+
+    /**
+     * Stops reporting statistics to the listener, if any
+     */
+    public void close() {
+        if (statsReporting != null) {
+            statsReporting.cancel(false);
         }
     }
 
     protected abstract T load(String key);
+
+    /**
+     * Non-blocking load used by {@link #getAll(Collection, int)}. Defaults to running {@link #load(String)} on the
+     * refresh executor; override with a natively async call where available.
+     */
+    protected CompletableFuture<T> loadAsync(String key) {
+        return CompletableFuture.supplyAsync(() -> load(key), loadExecutor);
+    }
+
+    /**
+     * Tells if a load failure means the entry does not exist, and is subject to negative caching.
+     * Defaults to 404 Not Found.
+     */
+    protected boolean isNotFound(Throwable error) {
+        return error instanceof HttpException && ((HttpException) error).isNotFound();
+    }
+
+    private T recordedLoad(String key) {
+        CacheLoadEvent event = new CacheLoadEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            T value = load(key);
+            success = true;
+            return value;
+        } finally {
+            event.complete(name, key, success);
+        }
+    }
+
+    private CompletableFuture<T> recordedLoadAsync(String key) {
+        CacheLoadEvent event = new CacheLoadEvent();
+        event.begin();
+        return loadAsync(key).whenComplete((value, error) -> event.complete(name, key, error == null));
+    }
+
+    private void checkSnapshotsSupported() {
+        checkState(valueType != null, "%s was created without a value type, which snapshots require", name);
+    }
+
+    private boolean isExpired(Entry<T> entry) {
+        return clock.millis() - entry.writtenAt() >= ttlMillis;
+    }
+
+    private static Ticker ticker(Clock clock) {
+        return new Ticker() {
+            @Override
+            public long read() {
+                return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+            }
+        };
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer slice = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+
+    private boolean isKnownMissing(String key) {
+        if (negativeCache != null && negativeCache.getIfPresent(key) != null) {
+            negativeHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void rememberIfNotFound(String key, Exception error) {
+        if (negativeCache != null && error.getCause() != null && isNotFound(error.getCause())) {
+            // Rethrown on lookups in the same shape as a failed load
+            negativeCache.put(key, new UncheckedExecutionException(error.getCause()));
+        }
+    }
+
+    /**
+     * Keeps expired entries around to serve on errors, when enabled
+     */
+    private void onRemoval(RemovalNotification<String, Entry<T>> notification) {
+        if (staleCache != null && notification.getCause() == RemovalCause.EXPIRED && notification.getValue() != null) {
+            staleCache.put(notification.getKey(), notification.getValue().value());
+        }
+    }
+
+    private Optional<T> staleIfError(String key, Exception error) {
+        if (staleCache == null || (error.getCause() != null && isNotFound(error.getCause()))) {
+            return Optional.empty();
+        }
+        T stale = staleCache.getIfPresent(key);
+        if (stale != null) {
+            LOG.warn("Unable to load cache entry {}, serving the expired value", key, error.getCause() != null ? error.getCause() : error);
+        }
+        return Optional.ofNullable(stale);
+    }
+
+    private void reportStats(Consumer<CacheStatistics> listener) {
+        try {
+            listener.accept(stats());
+        } catch (Exception ex) {
+            LOG.warn("Failure reporting cache statistics for {}", name, ex);
+        }
+    }
+
+    /**
+     * The reload pool shared by the caches without a refresh executor of their own, created on first use
+     */
+    private static final class DefaultRefreshExecutor {
+        private static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                DEFAULT_REFRESH_THREADS, DEFAULT_REFRESH_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    /**
+     * A cached value and the epoch millis it was loaded at
+     */
+    private record Entry<T>(T value, long writtenAt) {
+    }
 }
@@ -0,0 +1,64 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads used by the SDK: the queue poller, the HTTP client and background tasks.
+ * <p>
+ * Use {@link #virtualThreads()} when running on Java 21 or later to run blocking work such as xAPI commands on
+ * virtual threads. The SDK only holds {@link java.util.concurrent.locks.ReentrantLock}s or short, non-blocking
+ * monitors while doing I/O, so virtual threads are not pinned to their carriers.
+ */
+public interface ExecutorFactory {
+
+    /**
+     * A thread factory for threads named after the given name
+     */
+    ThreadFactory threadFactory(String name);
+
+    /**
+     * An executor running each task on a thread from {@link #threadFactory(String)}, growing as needed.
+     */
+    default ExecutorService newExecutor(String name) {
+        return Executors.newCachedThreadPool(threadFactory(name));
+    }
+
+    /**
+     * A single threaded scheduler for background tasks. Its thread is a daemon, so it never keeps the JVM alive.
+     */
+    default ScheduledExecutorService newScheduledExecutor(String name) {
+        ThreadFactory threadFactory = threadFactory(name);
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = threadFactory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Named, non-daemon platform threads. The default.
+     */
+    static ExecutorFactory platformThreads() {
+        return name -> {
+            AtomicInteger count = new AtomicInteger();
+            return runnable -> new Thread(runnable, name + "-" + count.incrementAndGet());
+        };
+    }
+
+    /**
+     * Virtual threads, one per task.
+     *
+     * @throws UnsupportedOperationException when not running on Java 21 or later
+     */
+    static ExecutorFactory virtualThreads() {
+        return new VirtualThreadExecutorFactory();
+    }
+
+    static boolean isVirtualThreadsSupported() {
+        return VirtualThreadExecutorFactory.isSupported();
+    }
+}
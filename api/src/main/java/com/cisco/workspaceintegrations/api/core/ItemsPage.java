@@ -0,0 +1,40 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * A page of a list API whose items were streamed to a consumer rather than collected
+ *
+ * @param count    The number of items in the page
+ * @param nextPage The <i>rel="next"</i> Link header target, or null
+ */
+public record ItemsPage(int count, URI nextPage) {
+
+    public Optional<URI> getNextPage() {
+        return Optional.ofNullable(nextPage);
+    }
+
+    /**
+     * Reads all pages, finding the next one like {@link PagedIterator} does: from the Link header when the API
+     * returns one, otherwise by offset until a page is not full.
+     *
+     * @return The total number of items
+     */
+    public static int readAll(int pageSize, IntFunction<ItemsPage> pageAtOffset, Function<URI, ItemsPage> pageAtLink) {
+        int total = 0;
+        ItemsPage page = pageAtOffset.apply(0);
+        while (true) {
+            total += page.count();
+            if (page.getNextPage().isPresent()) {
+                page = pageAtLink.apply(page.nextPage());
+            } else if (page.count() >= pageSize) {
+                page = pageAtOffset.apply(total);
+            } else {
+                return total;
+            }
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.cisco.workspaceintegrations.api.core;
 
 import java.lang.reflect.Type;
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.type.TypeFactory;
@@ -12,17 +15,41 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 public class ListResponse<E> {
 
+    /**
+     * The name of the items array in list API responses
+     */
+    public static final String ITEMS_FIELD = "items";
+
     private final List<E> items;
+    @JsonIgnore
+    private final URI nextPage;
 
     @JsonCreator
-    public ListResponse(@JsonProperty("item") List<E> items) {
+    public ListResponse(@JsonProperty(ITEMS_FIELD) List<E> items) {
+        this(items, null);
+    }
+
+    public ListResponse(List<E> items, URI nextPage) {
         this.items = items;
+        this.nextPage = nextPage;
     }
 
     public List<E> getItems() {
         return items;
     }
 
+    /**
+     * The URL of the next page, as given by the <i>rel="next"</i> Link header of the response.
+     * Empty for the last page, or when the API did not return paging links.
+     */
+    public Optional<URI> getNextPage() {
+        return Optional.ofNullable(nextPage);
+    }
+
+    public ListResponse<E> withNextPage(URI nextPage) {
+        return new ListResponse<>(items, nextPage);
+    }
+
     public static class ListResponseReference<T> extends TypeReference<ListResponse<T>> {
 
         private final Class<T> elementType;
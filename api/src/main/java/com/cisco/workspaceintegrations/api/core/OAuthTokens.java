@@ -1,6 +1,11 @@
 package com.cisco.workspaceintegrations.api.core;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class OAuthTokens {
@@ -13,6 +18,8 @@ public class OAuthTokens {
     private final String refreshToken;
     @JsonProperty("refresh_token_expires_in")
     private final Integer refreshTokenExpiresIn;
+    @JsonIgnore
+    private final Instant obtainedAt = Instant.now();
 
     @JsonCreator
     public OAuthTokens(@JsonProperty("access_token") String accessToken,
@@ -41,4 +48,26 @@ public class OAuthTokens {
         return this.refreshTokenExpiresIn != null ? this.refreshTokenExpiresIn : 0;
     }
 
+    /**
+     * When the tokens were received, the base of the expiry calculations
+     */
+    public Instant obtainedAt() {
+        return this.obtainedAt;
+    }
+
+    public Optional<Instant> accessTokenExpiresAt() {
+        return Optional.ofNullable(expiresIn).map(seconds -> obtainedAt.plusSeconds(seconds));
+    }
+
+    public boolean isAccessTokenExpired(Instant now) {
+        return accessTokenExpiresAt().map(expiry -> !now.isBefore(expiry)).orElse(false);
+    }
+
+    /**
+     * The point in time when the given fraction of the access token lifetime has passed
+     */
+    public Optional<Instant> accessTokenLifetimeElapsed(double fraction) {
+        return Optional.ofNullable(expiresIn).map(seconds -> obtainedAt.plus(Duration.ofMillis((long) (seconds * 1000 * fraction))));
+    }
+
 }
@@ -0,0 +1,116 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.cisco.workspaceintegrations.api.http.Http;
+
+import static com.cisco.workspaceintegrations.common.Utils.sneakyThrow;
+
+/**
+ * Lazily iterates over all items of a paginated list API.
+ * <p>
+ * Pages are fetched on demand, the first one on the first call to {@link #hasNext()}. When a page is handed out,
+ * the next page is requested in the background so it is usually ready by the time the current one is consumed. At
+ * most one page is buffered besides the one being consumed, so memory use is bounded by two pages regardless of the
+ * total number of items.
+ * <p>
+ * The next page is found from the <i>rel="next"</i> Link header when the API returns one, otherwise by offset.
+ */
+public final class PagedIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final int pageSize;
+    private final IntFunction<CompletableFuture<ListResponse<T>>> pageAtOffset;
+    private final Function<URI, CompletableFuture<ListResponse<T>>> pageAtLink;
+    private Iterator<T> current = Collections.emptyIterator();
+    private CompletableFuture<ListResponse<T>> next;
+    private boolean started;
+    private int offset;
+
+    /**
+     * @param pageSize     The requested page size, used to detect the last page when there are no paging links
+     * @param pageAtOffset Fetches the page starting at the given offset
+     * @param pageAtLink   Fetches the page at the given next page link
+     */
+    public PagedIterator(int pageSize,
+                         IntFunction<CompletableFuture<ListResponse<T>>> pageAtOffset,
+                         Function<URI, CompletableFuture<ListResponse<T>>> pageAtLink) {
+        this.pageSize = pageSize;
+        this.pageAtOffset = pageAtOffset;
+        this.pageAtLink = pageAtLink;
+    }
+
+    public static <T> Stream<T> stream(int pageSize,
+                                       IntFunction<CompletableFuture<ListResponse<T>>> pageAtOffset,
+                                       Function<URI, CompletableFuture<ListResponse<T>>> pageAtLink) {
+        PagedIterator<T> iterator = new PagedIterator<>(pageSize, pageAtOffset, pageAtLink);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                            .onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            started = true;
+            next = pageAtOffset.apply(0);
+        }
+        while (!current.hasNext()) {
+            if (next == null) {
+                return false;
+            }
+            ListResponse<T> page = await(next);
+            List<T> items = page.getItems() == null ? List.of() : page.getItems();
+            offset += items.size();
+            if (page.getNextPage().isPresent()) {
+                next = pageAtLink.apply(page.getNextPage().get());
+            } else if (items.size() >= pageSize) {
+                next = pageAtOffset.apply(offset);
+            } else {
+                next = null;
+            }
+            current = items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Cancels the prefetch of the next page, if any.
+     */
+    @Override
+    public void close() {
+        started = true;
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+        current = Collections.emptyIterator();
+    }
+
+    private ListResponse<T> await(CompletableFuture<ListResponse<T>> page) {
+        try {
+            return page.join();
+        } catch (RuntimeException ex) {
+            next = null;
+            Throwable cause = Http.unwrap(ex);
+            return cause instanceof Exception ? sneakyThrow((Exception) cause) : sneakyThrow(ex);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cisco.workspaceintegrations.api.http.EndpointFamily;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Hedges idempotent requests: when no response has arrived after the given latency percentile of the endpoint
+ * family, a duplicate request is sent and whichever completes first wins. Cancelling the future of the loser only
+ * stops waiting for it: its HTTP exchange runs to completion and the response is ignored.
+ * <p>
+ * Hedges are budgeted like retries: each request earns <i>budgetRatio</i> hedge tokens, and each hedge spends one,
+ * so hedging never adds more than that share of extra requests, which would otherwise make rate limiting worse.
+ * No hedging is done for an endpoint family until enough latencies have been recorded to know its percentile.
+ */
+final class RequestHedging {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestHedging.class);
+    private static final int MIN_SAMPLES = 100;
+    private static final double MAX_BUDGET = 10;
+
+    private final double percentile;
+    private final double budgetRatio;
+    private final Scheduler scheduler;
+    private final ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private double budget;
+
+    RequestHedging(double percentile, double budgetRatio) {
+        this(percentile, budgetRatio, (task, delay) -> CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS).execute(task));
+    }
+
+    RequestHedging(double percentile, double budgetRatio, Scheduler scheduler) {
+        checkArgument(percentile > 0 && percentile < 100, "percentile must be between 0 and 100");
+        checkArgument(budgetRatio > 0 && budgetRatio <= 1, "budgetRatio must be between 0 and 1");
+        this.percentile = percentile;
+        this.budgetRatio = budgetRatio;
+        this.scheduler = scheduler;
+    }
+
+    <T> CompletableFuture<T> execute(URI uri, Supplier<CompletableFuture<T>> request) {
+        String family = EndpointFamily.of(uri);
+        LatencyHistogram histogram = latencies.computeIfAbsent(family, name -> new LatencyHistogram());
+        earnBudget();
+        CompletableFuture<T> primary = timed(histogram, request);
+        if (histogram.getCount() < MIN_SAMPLES) {
+            return primary;
+        }
+        Duration delay = histogram.getPercentile(percentile);
+        Attempts<T> attempts = new Attempts<>();
+        attempts.track(primary);
+        scheduler.schedule(() -> {
+            if (attempts.result.isDone() || !spendBudget() || !attempts.start()) {
+                return;
+            }
+            LOG.debug("No response from {} after {} ms, hedging", uri, delay.toMillis());
+            CompletableFuture<T> hedge = timed(histogram, request);
+            attempts.track(hedge);
+            attempts.result.whenComplete((value, error) -> hedge.cancel(true));
+        }, delay);
+        attempts.result.whenComplete((value, error) -> primary.cancel(true));
+        return attempts.result;
+    }
+
+    private static <T> CompletableFuture<T> timed(LatencyHistogram histogram, Supplier<CompletableFuture<T>> request) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        future.thenRun(() -> histogram.record(System.nanoTime() - start));
+        return future;
+    }
+
+
+    private synchronized void earnBudget() {
+        budget = Math.min(MAX_BUDGET, budget + budgetRatio);
+    }
+
+    private synchronized boolean spendBudget() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    /**
+     * The attempts of a request: the first success wins, and the result only fails once every attempt started failed,
+     * so a hedge failing fast does not fail a primary that may still succeed
+     */
+    private static final class Attempts<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private int running = 1;
+
+        synchronized boolean start() {
+            if (running == 0) {
+                return false;
+            }
+            running++;
+            return true;
+        }
+
+        void track(CompletableFuture<T> attempt) {
+            attempt.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else if (failed()) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+
+        private synchronized boolean failed() {
+            return --running == 0;
+        }
+    }
+
+    /**
+     * Runs the hedge check after the delay
+     */
+    @FunctionalInterface
+    interface Scheduler {
+        void schedule(Runnable task, Duration delay);
+    }
+}
@@ -0,0 +1,54 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual thread support, looked up reflectively so the SDK still compiles and runs on Java 17.
+ */
+final class VirtualThreadExecutorFactory implements ExecutorFactory {
+
+    private static final Method OF_VIRTUAL = lookup("java.lang.Thread", "ofVirtual");
+    private static final Method BUILDER_NAME = lookup("java.lang.Thread$Builder", "name", String.class, long.class);
+    private static final Method BUILDER_FACTORY = lookup("java.lang.Thread$Builder", "factory");
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR =
+        lookup("java.util.concurrent.Executors", "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    VirtualThreadExecutorFactory() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later, running " + Runtime.version());
+        }
+    }
+
+    static boolean isSupported() {
+        return OF_VIRTUAL != null && BUILDER_NAME != null && BUILDER_FACTORY != null && NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    @Override
+    public ThreadFactory threadFactory(String name) {
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name + "-", 1L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException ex) {
+            throw new UnsupportedOperationException("Unable to create a virtual thread factory", ex);
+        }
+    }
+
+    @Override
+    public ExecutorService newExecutor(String name) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory(name));
+        } catch (ReflectiveOperationException ex) {
+            throw new UnsupportedOperationException("Unable to create a virtual thread executor", ex);
+        }
+    }
+
+    private static Method lookup(String className, String name, Class<?>... parameterTypes) {
+        try {
+            return Class.forName(className).getMethod(name, parameterTypes);
+        } catch (ClassNotFoundException | NoSuchMethodException ex) {
+            return null;
+        }
+    }
+}
@@ -1,32 +1,58 @@
 package com.cisco.workspaceintegrations.api.core;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.URLEncoder;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.cisco.workspaceintegrations.api.core.ListResponse.ListResponseReference;
 import com.cisco.workspaceintegrations.api.http.Http;
 import com.cisco.workspaceintegrations.api.http.HttpException;
+import com.cisco.workspaceintegrations.api.jfr.TokenRefreshEvent;
+import com.cisco.workspaceintegrations.api.metrics.Metrics;
+import com.cisco.workspaceintegrations.api.tracing.Span;
+import com.cisco.workspaceintegrations.api.tracing.Tracer;
 import com.cisco.workspaceintegrations.common.actions.Provisioning;
+import com.cisco.workspaceintegrations.common.json.Json;
 import com.cisco.workspaceintegrations.common.oauth.OAuthClient;
 
 import static com.cisco.workspaceintegrations.common.json.Json.fromJsonString;
 import static com.cisco.workspaceintegrations.common.json.Json.toJsonString;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static java.net.http.HttpRequest.BodyPublishers.ofString;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.joining;
 
-public class WebexHttp {
+public class WebexHttp implements AutoCloseable {
 
     private static final Logger LOG = LoggerFactory.getLogger(WebexHttp.class);
+    private static final int NOT_MODIFIED = 304;
 
     private final Http http;
     private final OAuthClient oAuthClient;
@@ -34,42 +60,143 @@ public class WebexHttp {
     private volatile OAuthTokens tokens;
     private final ReentrantLock fetchTokensLock;
     private final ProvisioningChangedListener provisioningChangedListener;
+    private final WebexHttpOptions options;
+    private final ExecutorFactory executorFactory;
+    private final ConcurrentHashMap<GetKey, CompletableFuture<Object>> inFlightGets = new ConcurrentHashMap<>();
+    private final Cache<GetKey, Validated> validated;
+    private final RequestHedging hedging;
+    private ScheduledExecutorService tokenRefreshScheduler;
+    private ScheduledFuture<?> scheduledTokenRefresh;
+    private boolean closed;
 
     public WebexHttp(Http http,
                      OAuthClient oAuthClient,
                      Provisioning provisioning,
                      ProvisioningChangedListener provisioningChangedListener) {
+        this(http, oAuthClient, provisioning, provisioningChangedListener,
+             WebexHttpOptions.defaults(), ExecutorFactory.platformThreads());
+    }
+
+    public WebexHttp(Http http,
+                     OAuthClient oAuthClient,
+                     Provisioning provisioning,
+                     ProvisioningChangedListener provisioningChangedListener,
+                     WebexHttpOptions options,
+                     ExecutorFactory executorFactory) {
         this.http = http;
         this.oAuthClient = oAuthClient;
         this.provisioning = provisioning;
         this.fetchTokensLock = new ReentrantLock();
         this.provisioningChangedListener = provisioningChangedListener;
+        this.options = checkNotNull(options);
+        this.executorFactory = checkNotNull(executorFactory);
+        this.validated = options.isConditionalGets()
+            ? CacheBuilder.newBuilder().maximumSize(options.getConditionalGetsMaxEntries()).build()
+            : null;
+        this.hedging = options.isHedgeGets()
+            ? new RequestHedging(options.getHedgePercentile(), options.getHedgeBudget())
+            : null;
     }
 
     public Provisioning getProvisioning() {
         return provisioning;
     }
 
+    public WebexHttpOptions getOptions() {
+        return options;
+    }
+
+    public Metrics getMetrics() {
+        return http.getMetrics();
+    }
+
+    public Tracer getTracer() {
+        return http.getTracer();
+    }
+
+    /**
+     * Fetches an access token if there is none or it has expired. With proactive token refresh enabled, this only
+     * happens on the first request since the token is then kept fresh in the background.
+     */
     public void initTokens() {
-        if (tokens == null) {
-            try {
-                fetchTokensLock.lock();
-                if (tokens != null) {
-                    return;
-                }
-                tokens = getNewAccessToken();
-            } finally {
-                fetchTokensLock.unlock();
+        OAuthTokens current = tokens;
+        if (current == null || current.isAccessTokenExpired(Instant.now())) {
+            refreshTokens(current);
+        }
+    }
+
+    /**
+     * Fetches new tokens unless another thread already replaced the stale ones
+     */
+    private void refreshTokens(OAuthTokens stale) {
+        OAuthTokens fresh;
+        try {
+            fetchTokensLock.lock();
+            if (tokens != stale) {
+                return;
             }
-            if (!Objects.equals(provisioning.getRefreshToken(), tokens.refreshToken())) {
-                this.provisioning = Provisioning.copy(provisioning).refreshToken(tokens.refreshToken()).build();
-                try {
-                    provisioningChangedListener.refreshTokenChanged(tokens.refreshToken());
-                } catch (Exception ex) {
-                    LOG.warn("Failure notifying the refresh token change", ex);
-                }
+            fresh = fetchNewAccessToken();
+            tokens = fresh;
+        } finally {
+            fetchTokensLock.unlock();
+        }
+        if (!Objects.equals(provisioning.getRefreshToken(), fresh.refreshToken())) {
+            this.provisioning = Provisioning.copy(provisioning).refreshToken(fresh.refreshToken()).build();
+            try {
+                provisioningChangedListener.refreshTokenChanged(fresh.refreshToken());
+            } catch (Exception ex) {
+                LOG.warn("Failure notifying the refresh token change", ex);
             }
         }
+        if (options.isProactiveTokenRefresh()) {
+            fresh.accessTokenLifetimeElapsed(options.getTokenRefreshRatio())
+                 .ifPresent(refreshAt -> scheduleTokenRefresh(fresh, Duration.between(Instant.now(), refreshAt)));
+        }
+    }
+
+    private synchronized void scheduleTokenRefresh(OAuthTokens current, Duration delay) {
+        if (closed) {
+            return;
+        }
+        ScheduledExecutorService scheduler = tokenRefreshExecutor();
+        if (scheduledTokenRefresh != null) {
+            scheduledTokenRefresh.cancel(false);
+        }
+        LOG.debug("Scheduling access token refresh in {} s", delay.toSeconds());
+        scheduledTokenRefresh = scheduler.schedule(
+            () -> refreshTokensInBackground(current), Math.max(0, delay.toMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService tokenRefreshExecutor() {
+        if (closed) {
+            throw new IllegalStateException("Closed");
+        }
+        if (tokenRefreshScheduler == null) {
+            tokenRefreshScheduler = executorFactory.newScheduledExecutor("webex-token-refresh");
+        }
+        return tokenRefreshScheduler;
+    }
+
+    private void refreshTokensInBackground(OAuthTokens current) {
+        try {
+            LOG.info("Refreshing the access token ahead of expiry");
+            refreshTokens(current);
+        } catch (Exception ex) {
+            LOG.warn("Background access token refresh failed, retrying in {} s",
+                     options.getTokenRefreshRetryDelay().toSeconds(), ex);
+            scheduleTokenRefresh(current, options.getTokenRefreshRetryDelay());
+        }
+    }
+
+    /**
+     * Stops the background token refresh
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (tokenRefreshScheduler != null) {
+            tokenRefreshScheduler.shutdownNow();
+        }
     }
 
     public HttpRequest.Builder newRequestBuilder(URI uri) {
@@ -80,6 +207,25 @@ public class WebexHttp {
                    .header("Authorization", "Bearer " + tokens.accessToken());
     }
 
+    private OAuthTokens fetchNewAccessToken() {
+        Span span = http.getTracer().startSpan("webex.token.refresh");
+        TokenRefreshEvent event = new TokenRefreshEvent();
+        event.begin();
+        try (Span.Scope scope = span.makeCurrent()) {
+            OAuthTokens fresh = getNewAccessToken();
+            event.complete(true);
+            http.getMetrics().recordTokenRefresh(true);
+            return fresh;
+        } catch (RuntimeException ex) {
+            event.complete(false);
+            http.getMetrics().recordTokenRefresh(false);
+            span.recordException(ex);
+            throw ex;
+        } finally {
+            span.end();
+        }
+    }
+
     public OAuthTokens getNewAccessToken() {
         LOG.info("Fetching a new access token");
         HttpRequest.Builder requestBuilder = http.defaultRequestBuilder(provisioning.getOauthUrl());
@@ -97,40 +243,40 @@ public class WebexHttp {
 
     public <Response, Body> Response post(URI uri, Body body, Class<Response> responseType) {
         HttpResponse<String> response = executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(uri).POST(ofString(toJsonString(body))).build())
+            () -> http.execute(requestWithBody(uri, "POST", body))
         );
         return fromJsonString(response.body(), responseType);
     }
 
     public <Body> void post(URI uri, Body body) {
         executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(uri).POST(ofString(toJsonString(body))).build())
+            () -> http.execute(requestWithBody(uri, "POST", body))
         );
     }
 
     public <Response, Body> Response patch(URI uri, Body body, Class<Response> responseType) {
         HttpResponse<String> response = executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(uri).method("PATCH", ofString(toJsonString(body))).build())
+            () -> http.execute(requestWithBody(uri, "PATCH", body))
         );
         return fromJsonString(response.body(), responseType);
     }
 
     public <Body> void patch(URI uri, Body body) {
         executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(uri).method("PATCH", ofString(toJsonString(body))).build())
+            () -> http.execute(requestWithBody(uri, "PATCH", body))
         );
     }
 
     public <Response, Body> Response put(URI uri, Body body, Class<Response> responseType) {
         HttpResponse<String> response = executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(uri).PUT(ofString(toJsonString(body))).build())
+            () -> http.execute(requestWithBody(uri, "PUT", body))
         );
         return fromJsonString(response.body(), responseType);
     }
 
     public <Body> void put(URI uri, Body body) {
         executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(uri).PUT(ofString(toJsonString(body))).build())
+            () -> http.execute(requestWithBody(uri, "PUT", body))
         );
     }
 
@@ -141,33 +287,324 @@ public class WebexHttp {
     }
 
     public <Response> Response get(URI uri, Class<Response> responseType) {
-        HttpResponse<String> response = executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(uri).GET().build())
-        );
-        return fromJsonString(response.body(), responseType);
+        return coalesced(uri, responseType, () -> conditionalGet(
+            uri, responseType, response -> fromJsonString(response.body(), responseType)
+        ));
     }
 
     public <Response> Response get(URI uri, TypeReference<Response> responseType) {
+        return coalesced(uri, responseType.getType(), () -> conditionalGet(
+            uri, responseType.getType(), response -> fromJsonString(response.body(), responseType)
+        ));
+    }
+
+    /**
+     * GET a long poll, like the queue poll, which the server holds until it has something to return. It is not
+     * coalesced, and the circuit breaker does not count it as slow.
+     */
+    public <Response> Response longPoll(URI uri, Class<Response> responseType) {
         HttpResponse<String> response = executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(uri).GET().build())
+            () -> http.executeLongPoll(newRequestBuilder(uri).GET().build())
         );
         return fromJsonString(response.body(), responseType);
     }
 
     public <Response> Response get(URI uri, Class<Response> responseType, Map<String, Object> params) {
+        return get(URI.create(uri + "?" + urlEncode(params)), responseType);
+    }
+
+    /**
+     * Variant of {@link #get(URI, Class, Map)} that is hedged when hedging is enabled, see
+     * {@link WebexHttpOptions.Builder#hedgeGets(double)}. Only for quick reads where a duplicate request is harmless,
+     * like xAPI status queries.
+     */
+    public <Response> Response getHedged(URI uri, Class<Response> responseType, Map<String, Object> params) {
         URI withParams = URI.create(uri + "?" + urlEncode(params));
-        HttpResponse<String> response = executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(withParams).GET().build())
-        );
-        return fromJsonString(response.body(), responseType);
+        return coalesced(withParams, responseType, () -> hedgedGet(
+            withParams, responseType, response -> fromJsonString(response.body(), responseType)
+        ));
     }
 
     public <Response> Response get(URI uri, TypeReference<Response> responseType, Map<String, Object> params) {
+        return get(URI.create(uri + "?" + urlEncode(params)), responseType);
+    }
+
+    /**
+     * Read a page of a list API. The next page link (if any) is available from {@link ListResponse#getNextPage()}.
+     */
+    public <E> ListResponse<E> getList(URI uri, ListResponseReference<E> responseType, Map<String, Object> params) {
+        return getList(URI.create(uri + "?" + urlEncode(params)), responseType);
+    }
+
+    /**
+     * Read a page of a list API from a full page URL, say the next page link of a previous page.
+     */
+    public <E> ListResponse<E> getList(URI pageUrl, ListResponseReference<E> responseType) {
+        return conditionalGet(pageUrl, responseType.getType(), response -> toListResponse(response, responseType));
+    }
+
+    public <E> CompletableFuture<ListResponse<E>> getListAsync(URI uri, ListResponseReference<E> responseType, Map<String, Object> params) {
+        return getListAsync(URI.create(uri + "?" + urlEncode(params)), responseType);
+    }
+
+    public <E> CompletableFuture<ListResponse<E>> getListAsync(URI pageUrl, ListResponseReference<E> responseType) {
+        return conditionalGetAsync(pageUrl, responseType.getType(), response -> toListResponse(response, responseType));
+    }
+
+    /**
+     * Read a page of a list API, streaming the items to the consumer as they are parsed off the wire rather than
+     * materializing the response body and the item list in memory.
+     *
+     * @return The number of items in the page and the link to the next page, if any
+     */
+    public <E> ItemsPage getItems(URI uri, Class<E> itemType, Map<String, Object> params, Consumer<? super E> consumer) {
+        return getItems(URI.create(uri + "?" + urlEncode(params)), itemType, consumer);
+    }
+
+    /**
+     * Variant of {@link #getItems(URI, Class, Map, Consumer)} for a page URL with its query, like a next page link
+     */
+    public <E> ItemsPage getItems(URI pageUrl, Class<E> itemType, Consumer<? super E> consumer) {
+        return executeWithExpiredTokenRefresh(() -> {
+            HttpResponse<InputStream> response = http.execute(
+                newRequestBuilder(pageUrl).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream()
+            );
+            try (InputStream body = response.body()) {
+                int count = Json.readArrayItems(body, ListResponse.ITEMS_FIELD, itemType, consumer);
+                return new ItemsPage(count, nextPageLink(response.headers()).orElse(null));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    public <Response, Body> CompletableFuture<Response> postAsync(URI uri, Body body, Class<Response> responseType) {
+        return executeWithExpiredTokenRefreshAsync(
+            () -> http.executeAsync(requestWithBody(uri, "POST", body))
+        ).thenApply(response -> fromJsonString(response.body(), responseType));
+    }
+
+    public <Body> CompletableFuture<Void> postAsync(URI uri, Body body) {
+        return executeWithExpiredTokenRefreshAsync(
+            () -> http.executeAsync(requestWithBody(uri, "POST", body))
+        ).thenAccept(response -> { });
+    }
+
+    public <Response, Body> CompletableFuture<Response> patchAsync(URI uri, Body body, Class<Response> responseType) {
+        return executeWithExpiredTokenRefreshAsync(
+            () -> http.executeAsync(requestWithBody(uri, "PATCH", body))
+        ).thenApply(response -> fromJsonString(response.body(), responseType));
+    }
+
+    public <Response, Body> CompletableFuture<Response> putAsync(URI uri, Body body, Class<Response> responseType) {
+        return executeWithExpiredTokenRefreshAsync(
+            () -> http.executeAsync(requestWithBody(uri, "PUT", body))
+        ).thenApply(response -> fromJsonString(response.body(), responseType));
+    }
+
+    public CompletableFuture<Void> deleteAsync(URI uri) {
+        return executeWithExpiredTokenRefreshAsync(
+            () -> http.executeAsync(newRequestBuilder(uri).DELETE().build())
+        ).thenAccept(response -> { });
+    }
+
+    public <Response> CompletableFuture<Response> getAsync(URI uri, Class<Response> responseType) {
+        return coalescedAsync(uri, responseType, () -> conditionalGetAsync(
+            uri, responseType, response -> fromJsonString(response.body(), responseType)
+        ));
+    }
+
+    public <Response> CompletableFuture<Response> getAsync(URI uri, TypeReference<Response> responseType) {
+        return coalescedAsync(uri, responseType.getType(), () -> conditionalGetAsync(
+            uri, responseType.getType(), response -> fromJsonString(response.body(), responseType)
+        ));
+    }
+
+    public <Response> CompletableFuture<Response> getAsync(URI uri, Class<Response> responseType, Map<String, Object> params) {
+        URI withParams = URI.create(uri + "?" + urlEncode(params));
+        return getAsync(withParams, responseType);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getHedged(URI, Class, Map)}
+     */
+    public <Response> CompletableFuture<Response> getHedgedAsync(URI uri, Class<Response> responseType, Map<String, Object> params) {
+        URI withParams = URI.create(uri + "?" + urlEncode(params));
+        return coalescedAsync(withParams, responseType, () -> hedgedGetAsync(
+            withParams, responseType, response -> fromJsonString(response.body(), responseType)
+        ));
+    }
+
+    public <Response> CompletableFuture<Response> getAsync(URI uri, TypeReference<Response> responseType, Map<String, Object> params) {
         URI withParams = URI.create(uri + "?" + urlEncode(params));
+        return getAsync(withParams, responseType);
+    }
+
+    /**
+     * Runs the GET, or joins an identical one in flight when coalescing is enabled
+     */
+    @SuppressWarnings("unchecked")
+    private <Response> Response coalesced(URI uri, Type responseType, Supplier<Response> get) {
+        if (!options.isCoalesceGets()) {
+            return get.get();
+        }
+        GetKey key = new GetKey(uri, responseType);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightGets.putIfAbsent(key, own);
+        if (inFlight != null) {
+            try {
+                return (Response) inFlight.join();
+            } catch (CompletionException ex) {
+                Throwable cause = Http.unwrap(ex);
+                throw cause instanceof RuntimeException runtime ? runtime : ex;
+            }
+        }
+        try {
+            Response response = get.get();
+            inFlightGets.remove(key, own);
+            own.complete(response);
+            return response;
+        } catch (RuntimeException | Error ex) {
+            inFlightGets.remove(key, own);
+            own.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Async counterpart of {@link #coalesced(URI, Type, Supplier)}. Each caller gets its own dependent future, so
+     * cancelling it does not affect the others.
+     */
+    @SuppressWarnings("unchecked")
+    private <Response> CompletableFuture<Response> coalescedAsync(URI uri, Type responseType, Supplier<CompletableFuture<Response>> get) {
+        if (!options.isCoalesceGets()) {
+            return get.get();
+        }
+        GetKey key = new GetKey(uri, responseType);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightGets.putIfAbsent(key, own);
+        if (inFlight == null) {
+            start(get).whenComplete((response, error) -> {
+                inFlightGets.remove(key, own);
+                if (error != null) {
+                    own.completeExceptionally(Http.unwrap(error));
+                } else {
+                    own.complete(response);
+                }
+            });
+            inFlight = own;
+        }
+        return inFlight.thenApply(response -> (Response) response);
+    }
+
+    private HttpRequest requestWithBody(URI uri, String method, Object body) {
+        HttpRequest.Builder builder = newRequestBuilder(uri);
+        return builder.method(method, http.bodyPublisher(builder, toJsonString(body))).build();
+    }
+
+    /**
+     * Runs the GET, hedged when hedging is enabled, in which case it goes through the async client
+     */
+    private <Response> Response hedgedGet(URI uri, Type responseType, Function<HttpResponse<String>, Response> decode) {
+        if (hedging == null) {
+            return conditionalGet(uri, responseType, decode);
+        }
+        try {
+            return hedgedGetAsync(uri, responseType, decode).join();
+        } catch (CompletionException ex) {
+            Throwable cause = Http.unwrap(ex);
+            throw cause instanceof RuntimeException runtime ? runtime : ex;
+        }
+    }
+
+    private <Response> CompletableFuture<Response> hedgedGetAsync(URI uri, Type responseType, Function<HttpResponse<String>, Response> decode) {
+        if (hedging == null) {
+            return conditionalGetAsync(uri, responseType, decode);
+        }
+        return hedging.execute(uri, () -> conditionalGetAsync(uri, responseType, decode));
+    }
+
+    /**
+     * Runs the GET, conditional on the validators of the previous response when conditional GETs are enabled
+     */
+    private <Response> Response conditionalGet(URI uri, Type responseType, Function<HttpResponse<String>, Response> decode) {
+        GetKey key = new GetKey(uri, responseType);
+        Validated previous = validated != null ? validated.getIfPresent(key) : null;
         HttpResponse<String> response = executeWithExpiredTokenRefresh(
-            () -> http.execute(newRequestBuilder(withParams).GET().build())
+            () -> http.execute(conditionalRequest(uri, previous))
         );
-        return fromJsonString(response.body(), responseType);
+        return decodeOrReuse(key, previous, response, decode);
+    }
+
+    private <Response> CompletableFuture<Response> conditionalGetAsync(URI uri, Type responseType, Function<HttpResponse<String>, Response> decode) {
+        GetKey key = new GetKey(uri, responseType);
+        Validated previous = validated != null ? validated.getIfPresent(key) : null;
+        return executeWithExpiredTokenRefreshAsync(
+            () -> http.executeAsync(conditionalRequest(uri, previous))
+        ).thenApply(response -> decodeOrReuse(key, previous, response, decode));
+    }
+
+    private HttpRequest conditionalRequest(URI uri, Validated previous) {
+        HttpRequest.Builder builder = newRequestBuilder(uri).GET();
+        if (previous != null) {
+            if (previous.etag() != null) {
+                builder.header("If-None-Match", previous.etag());
+            }
+            if (previous.lastModified() != null) {
+                builder.header("If-Modified-Since", previous.lastModified());
+            }
+        }
+        return builder.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <Response> Response decodeOrReuse(GetKey key,
+                                              Validated previous,
+                                              HttpResponse<String> response,
+                                              Function<HttpResponse<String>, Response> decode) {
+        if (response.statusCode() == NOT_MODIFIED && previous != null) {
+            LOG.debug("{} not modified, reusing the previous response", key.uri());
+            return (Response) previous.response();
+        }
+        Response decoded = decode.apply(response);
+        if (validated != null) {
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            if (decoded != null && (etag != null || lastModified != null)) {
+                validated.put(key, new Validated(etag, lastModified, decoded));
+            } else {
+                validated.invalidate(key);
+            }
+        }
+        return decoded;
+    }
+
+    private static <E> ListResponse<E> toListResponse(HttpResponse<String> response, ListResponseReference<E> responseType) {
+        ListResponse<E> list = fromJsonString(response.body(), responseType);
+        return nextPageLink(response.headers()).map(list::withNextPage).orElse(list);
+    }
+
+    /**
+     * Finds the <i>rel="next"</i> target of RFC 8288 Link headers, say
+     * <code>&lt;https://webexapis.com/v1/devices?start=100&gt;; rel="next"</code>
+     */
+    static Optional<URI> nextPageLink(HttpHeaders headers) {
+        for (String header : headers.allValues("Link")) {
+            for (String link : header.split(",(?=\\s*<)")) {
+                String[] parts = link.split(";");
+                String target = parts[0].trim();
+                if (!target.startsWith("<") || !target.endsWith(">")) {
+                    continue;
+                }
+                for (int i = 1; i < parts.length; i++) {
+                    if (parts[i].replace("\"", "").replace(" ", "").equalsIgnoreCase("rel=next")) {
+                        return Optional.of(URI.create(target.substring(1, target.length() - 1)));
+                    }
+                }
+            }
+        }
+        return Optional.empty();
     }
 
     protected static String urlEncode(Map<String, Object> params) {
@@ -184,17 +621,59 @@ public class WebexHttp {
     }
 
     protected <T> T executeWithExpiredTokenRefresh(Supplier<T> request, boolean retry) {
+        initTokens();
+        OAuthTokens sentWith = tokens;
         try {
             return request.get();
         } catch (HttpException ex) {
             if (!retry && ex.isUnauthorized()) {
                 LOG.info("Request unauthorized (401), fetching a new access token", ex);
-                this.tokens = null;
-                this.initTokens();
+                refreshTokens(sentWith);
                 return executeWithExpiredTokenRefresh(request, true);
             } else {
                 throw ex;
             }
         }
     }
+
+    /**
+     * Async counterpart of {@link #executeWithExpiredTokenRefresh(Supplier)}: a 401 Unauthorized triggers one token
+     * refresh followed by a single retry of the request. The refresh runs on the token refresh thread rather than on
+     * an HTTP client thread, and concurrent 401s for the same token share a single refresh.
+     */
+    protected <T> CompletableFuture<T> executeWithExpiredTokenRefreshAsync(Supplier<CompletableFuture<T>> request) {
+        OAuthTokens sentWith;
+        try {
+            initTokens();
+            sentWith = tokens;
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        return start(request).exceptionallyCompose(error -> {
+            Throwable cause = Http.unwrap(error);
+            if (cause instanceof HttpException ex && ex.isUnauthorized()) {
+                LOG.info("Request unauthorized (401), fetching a new access token", ex);
+                return CompletableFuture.runAsync(() -> refreshTokens(sentWith), tokenRefreshExecutor())
+                                        .thenCompose(ignored -> start(request));
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
+
+    private static <T> CompletableFuture<T> start(Supplier<CompletableFuture<T>> request) {
+        try {
+            return request.get();
+        } catch (Exception ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private record GetKey(URI uri, Type responseType) {
+    }
+
+    /**
+     * The ETag and Last-Modified validators of a GET response, either of which may be null, and the deserialized response
+     */
+    private record Validated(String etag, String lastModified, Object response) {
+    }
 }
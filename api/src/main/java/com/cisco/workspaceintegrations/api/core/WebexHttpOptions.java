@@ -0,0 +1,162 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.time.Duration;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Tuning of the {@link WebexHttp} behaviour
+ */
+public final class WebexHttpOptions {
+
+    private final boolean proactiveTokenRefresh;
+    private final double tokenRefreshRatio;
+    private final Duration tokenRefreshRetryDelay;
+    private final boolean coalesceGets;
+    private final int conditionalGetsMaxEntries;
+    private final double hedgePercentile;
+    private final double hedgeBudget;
+
+    private WebexHttpOptions(Builder builder) {
+        this.proactiveTokenRefresh = builder.proactiveTokenRefresh;
+        this.tokenRefreshRatio = builder.tokenRefreshRatio;
+        this.tokenRefreshRetryDelay = builder.tokenRefreshRetryDelay;
+        this.coalesceGets = builder.coalesceGets;
+        this.conditionalGetsMaxEntries = builder.conditionalGetsMaxEntries;
+        this.hedgePercentile = builder.hedgePercentile;
+        this.hedgeBudget = builder.hedgeBudget;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static WebexHttpOptions defaults() {
+        return builder().build();
+    }
+
+    public boolean isProactiveTokenRefresh() {
+        return proactiveTokenRefresh;
+    }
+
+    public double getTokenRefreshRatio() {
+        return tokenRefreshRatio;
+    }
+
+    public Duration getTokenRefreshRetryDelay() {
+        return tokenRefreshRetryDelay;
+    }
+
+    public boolean isCoalesceGets() {
+        return coalesceGets;
+    }
+
+    public boolean isConditionalGets() {
+        return conditionalGetsMaxEntries > 0;
+    }
+
+    public int getConditionalGetsMaxEntries() {
+        return conditionalGetsMaxEntries;
+    }
+
+    public boolean isHedgeGets() {
+        return hedgePercentile > 0;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public double getHedgeBudget() {
+        return hedgeBudget;
+    }
+
+    public static final class Builder {
+        private boolean proactiveTokenRefresh = true;
+        private double tokenRefreshRatio = 0.8;
+        private Duration tokenRefreshRetryDelay = Duration.ofSeconds(30);
+        private boolean coalesceGets;
+        private int conditionalGetsMaxEntries;
+        private double hedgePercentile;
+        private double hedgeBudget = 0.05;
+
+        private Builder() {
+        }
+
+        /**
+         * Refresh the access token in the background before it expires, so requests never wait for a token fetch.
+         * Enabled by default. When disabled, the token is refreshed when it has expired or a request gets a 401.
+         */
+        public Builder proactiveTokenRefresh(boolean val) {
+            proactiveTokenRefresh = val;
+            return this;
+        }
+
+        /**
+         * The fraction of the access token lifetime after which it is refreshed. Defaults to 0.8.
+         */
+        public Builder tokenRefreshRatio(double val) {
+            checkArgument(val > 0 && val < 1, "tokenRefreshRatio must be between 0 and 1");
+            tokenRefreshRatio = val;
+            return this;
+        }
+
+        /**
+         * Delay before retrying a failed background refresh. Defaults to 30 seconds.
+         */
+        public Builder tokenRefreshRetryDelay(Duration val) {
+            tokenRefreshRetryDelay = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Let concurrent identical GETs, same URL and response type, share a single request and its deserialized
+         * response, which cuts duplicate traffic when a burst of messages makes many threads fetch the same workspace
+         * or device. Disabled by default. Only enable it if the responses are not mutated by the callers.
+         */
+        public Builder coalesceGets(boolean val) {
+            coalesceGets = val;
+            return this;
+        }
+
+        /**
+         * Remember the ETag and Last-Modified validators of GET responses, along with the deserialized response, for
+         * up to the given number of URLs. Later GETs of the same URL are sent as conditional requests, and a
+         * 304 Not Modified reply reuses the previous response instead of downloading and parsing it again.
+         * Disabled (0) by default. Only enable it if the responses are not mutated by the callers.
+         */
+        public Builder conditionalGets(int maxEntries) {
+            checkArgument(maxEntries >= 0, "maxEntries cannot be negative");
+            conditionalGetsMaxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Hedge the GETs that opt in through {@link WebexHttp#getHedged}, like xAPI status queries: when no response
+         * has arrived after the given latency percentile of the endpoint family, say 95, send a duplicate request and
+         * use whichever response comes first. This cuts the tail latency caused by a few slow responses. Plain GETs
+         * and long polls are never hedged. Disabled by default.
+         *
+         * @see #hedgeBudget(double)
+         */
+        public Builder hedgeGets(double percentile) {
+            checkArgument(percentile > 0 && percentile < 100, "percentile must be between 0 and 100");
+            hedgePercentile = percentile;
+            return this;
+        }
+
+        /**
+         * The max share of extra requests sent as hedges. Defaults to 0.05, that is 5%.
+         */
+        public Builder hedgeBudget(double val) {
+            checkArgument(val > 0 && val <= 1, "hedgeBudget must be between 0 and 1");
+            hedgeBudget = val;
+            return this;
+        }
+
+        public WebexHttpOptions build() {
+            return new WebexHttpOptions(this);
+        }
+    }
+}
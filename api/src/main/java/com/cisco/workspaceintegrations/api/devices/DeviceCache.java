@@ -1,7 +1,9 @@
 package com.cisco.workspaceintegrations.api.devices;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
+import com.cisco.workspaceintegrations.api.caching.CacheOptions;
 import com.cisco.workspaceintegrations.api.caching.InMemoryCache;
 import com.cisco.workspaceintegrations.common.devices.Device;
 
@@ -13,14 +15,36 @@ public class DeviceCache extends InMemoryCache<Device> {
     private final DevicesApi api;
 
     public DeviceCache(DevicesApi api) {
-        this.api = api;
+        this(api, CacheOptions.defaults());
     }
 
     public DeviceCache(DevicesApi api, Duration ttl, int maxSize) {
-        super(ttl, maxSize);
+        this(api, CacheOptions.builder().ttl(ttl).maxSize(maxSize).build());
+    }
+
+    /**
+     * Use {@link CacheOptions#builder()} to e.g. enable refresh ahead, so that expiring entries are reloaded in the
+     * background rather than on the calling thread.
+     */
+    public DeviceCache(DevicesApi api, CacheOptions options) {
+        super(Device.class, options);
         this.api = api;
     }
 
+    /**
+     * Populates the cache from the list API, 1000 devices per request, instead of fetching them one by one.
+     *
+     * @return The number of devices cached
+     */
+    public int warmUp(DevicesFilter filter) {
+        return api.forEachDevice(filter, device -> put(device.getId(), device));
+    }
+
+    @Override
+    protected CompletableFuture<Device> loadAsync(String id) {
+        return api.getDeviceAsync(id);
+    }
+
     @Override
     protected Device load(String id) {
         return api.getDevice(id);
@@ -0,0 +1,187 @@
+package com.cisco.workspaceintegrations.api.devices;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cisco.workspaceintegrations.common.actions.Deprovisioning;
+import com.cisco.workspaceintegrations.common.actions.JwtDecoder;
+import com.cisco.workspaceintegrations.common.devices.Device;
+import com.cisco.workspaceintegrations.common.json.Json;
+import com.cisco.workspaceintegrations.common.messages.ActionMessage;
+import com.cisco.workspaceintegrations.common.messages.Message;
+import com.cisco.workspaceintegrations.common.messages.WebhookDeviceMessage;
+import com.cisco.workspaceintegrations.common.messages.WebhookEventsMessage;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage;
+import com.cisco.workspaceintegrations.common.xapi.Key;
+import com.cisco.workspaceintegrations.common.xapi.KeyIndex;
+
+import static com.cisco.workspaceintegrations.common.xapi.EventKeys.BOOT_EVENT;
+import static com.cisco.workspaceintegrations.common.xapi.Key.key;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps a {@link DeviceCache} in sync with the change notification queue, so the cache can run with a long TTL.
+ * Register it as (or chain it into) the {@link com.cisco.workspaceintegrations.api.queue.QueuePoller} consumer.
+ * <p>
+ * When a status key backing one of the fields of a cached device changes, e.g. the IP address, the field is patched
+ * in the cached device if its value can be taken from the status as is, see {@link #PATCHED_FIELDS}. Otherwise the
+ * device is invalidated, which also happens when:
+ * <ul>
+ * <li>a status key above one of its fields is removed, e.g. a network interface
+ * <li>its status is fully synced, which happens when it reconnects
+ * <li>it boots
+ * <li>it reports a workspace other than the cached one
+ * </ul>
+ * The whole cache is invalidated when the integration is deprovisioned.
+ */
+public final class DeviceCacheBinder implements Consumer<List<Message>> {
+
+    /**
+     * Status keys backing the fields of a {@link Device}
+     */
+    public static final List<Key> DEVICE_FIELD_KEYS = List.of(
+        key("SystemUnit.Software.*"),
+        key("SystemUnit.ProductId"),
+        key("SystemUnit.Hardware.Module.SerialNumber"),
+        key("Network[*].IPv4.Address"),
+        key("Network[*].IPv6.Address"),
+        key("Network[*].Ethernet.MacAddress"),
+        key("UserInterface.ContactInfo.Name"),
+        key("SIP.Registration[*].URI"),
+        key("Provisioning.Software.UpgradeStatus.*")
+    );
+
+    /**
+     * Status keys whose value is the value of a {@link Device} field, by field name
+     */
+    public static final Map<Key, String> PATCHED_FIELDS = Map.of(
+        key("SystemUnit.Software.DisplayName"), "software",
+        key("SystemUnit.Hardware.Module.SerialNumber"), "serial",
+        key("Network[1].IPv4.Address"), "ip",
+        key("Network[1].Ethernet.MacAddress"), "mac",
+        key("UserInterface.ContactInfo.Name"), "displayName",
+        key("SIP.Registration[1].URI"), "primarySipUrl"
+    );
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeviceCacheBinder.class);
+
+    private final DeviceCache cache;
+    private final JwtDecoder jwtDecoder;
+    private final KeyIndex<Key> invalidatingKeys;
+    private final KeyIndex<Key> parentKeys;
+
+    public DeviceCacheBinder(DeviceCache cache, JwtDecoder jwtDecoder) {
+        this(cache, jwtDecoder, DEVICE_FIELD_KEYS);
+    }
+
+    /**
+     * @param invalidatingKeys Status keys (possibly with wildcards) that invalidate the device when updated or removed,
+     *                         unless patched. Removing a key above one of them invalidates the device too.
+     */
+    public DeviceCacheBinder(DeviceCache cache, JwtDecoder jwtDecoder, Collection<Key> invalidatingKeys) {
+        this.cache = checkNotNull(cache);
+        this.jwtDecoder = checkNotNull(jwtDecoder);
+        KeyIndex.Builder<Key> builder = KeyIndex.builder();
+        KeyIndex.Builder<Key> parents = KeyIndex.builder();
+        for (Key invalidatingKey : invalidatingKeys) {
+            builder.add(invalidatingKey, invalidatingKey);
+            List<Key.Segment> segments = invalidatingKey.segments();
+            for (int depth = 1; depth < segments.size(); depth++) {
+                parents.add(key(segments.subList(0, depth)), invalidatingKey);
+            }
+        }
+        this.invalidatingKeys = builder.build();
+        this.parentKeys = parents.build();
+    }
+
+    @Override
+    public void accept(List<Message> messages) {
+        for (Message message : messages) {
+            try {
+                if (message instanceof WebhookDeviceMessage deviceMessage) {
+                    apply(deviceMessage);
+                } else if (message instanceof ActionMessage actionMessage
+                    && actionMessage.decodeAction(jwtDecoder) instanceof Deprovisioning) {
+                    LOG.info("Integration deprovisioned, invalidating all cached devices");
+                    cache.invalidateAll();
+                }
+            } catch (Exception ex) {
+                LOG.warn("Unable to update the device cache from {}", message, ex);
+                if (message instanceof WebhookDeviceMessage deviceMessage) {
+                    cache.invalidate(deviceMessage.deviceId());
+                }
+            }
+        }
+    }
+
+    private void apply(WebhookDeviceMessage message) {
+        Optional<Device> cached = cache.getIfPresent(message.deviceId());
+        if (cached.isEmpty()) {
+            return;
+        }
+        if (!Objects.equals(cached.get().getWorkspaceId(), message.workspaceId())) {
+            invalidate(message);
+        } else if (message instanceof WebhookStatusMessage statusMessage) {
+            apply(statusMessage);
+        } else if (message instanceof WebhookEventsMessage eventsMessage
+            && eventsMessage.events().stream().anyMatch(event -> BOOT_EVENT.encloses(event.key()))) {
+            invalidate(message);
+        }
+    }
+
+    private void apply(WebhookStatusMessage message) {
+        if (message.isFullSync()) {
+            invalidate(message);
+            return;
+        }
+        ObjectNode fields = Json.objectMapper().createObjectNode();
+        for (Map.Entry<Key, JsonNode> update : message.changes().updated().entrySet()) {
+            if (invalidatingKeys.matchesAny(update.getKey())) {
+                String field = PATCHED_FIELDS.get(update.getKey());
+                if (field == null || !update.getValue().isTextual()) {
+                    invalidate(message);
+                    return;
+                }
+                fields.set(field, update.getValue());
+            }
+        }
+        for (Key removed : message.changes().removed()) {
+            if (parentKeys.matchesAny(removed)) {
+                invalidate(message);
+                return;
+            }
+            if (invalidatingKeys.matchesAny(removed)) {
+                String field = PATCHED_FIELDS.get(removed);
+                if (field == null) {
+                    invalidate(message);
+                    return;
+                }
+                fields.putNull(field);
+            }
+        }
+        if (!fields.isEmpty()) {
+            LOG.debug("Patching cached device {} with {}", message.deviceId(), fields);
+            cache.updateIfPresent(message.deviceId(), device -> patch(device, fields));
+        }
+    }
+
+    private void invalidate(WebhookDeviceMessage message) {
+        LOG.debug("Invalidating cached device {}", message.deviceId());
+        cache.invalidate(message.deviceId());
+    }
+
+    private static Device patch(Device device, ObjectNode fields) {
+        ObjectNode patched = (ObjectNode) Json.toJsonNode(device);
+        patched.setAll(fields);
+        return Json.fromJsonNode(patched, Device.class);
+    }
+}
@@ -2,14 +2,19 @@ package com.cisco.workspaceintegrations.api.devices;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableMap;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.cisco.workspaceintegrations.api.core.ItemsPage;
 import com.cisco.workspaceintegrations.api.core.ListResponse;
 import com.cisco.workspaceintegrations.api.core.ListResponse.ListResponseReference;
+import com.cisco.workspaceintegrations.api.core.PagedIterator;
 import com.cisco.workspaceintegrations.api.core.WebexDeveloperApi;
 import com.cisco.workspaceintegrations.api.core.WebexHttp;
 import com.cisco.workspaceintegrations.common.devices.ActivationCode;
@@ -20,6 +25,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 public class DevicesApi extends WebexDeveloperApi {
 
+    private static final int STREAM_PAGE_SIZE = 1000;
+
     public DevicesApi(WebexHttp webexHttp) {
         super(webexHttp, "devices");
     }
@@ -40,15 +47,49 @@ public class DevicesApi extends WebexDeveloperApi {
         );
     }
 
+    public CompletableFuture<Device> getDeviceAsync(String deviceId) {
+        return this.getWebexHttp().getAsync(urlFor(deviceId), Device.class);
+    }
+
     public ListResponse<Device> getDevices(int start, int max, DevicesFilter filter) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("start", start);
-        params.put("max", max);
-        filter.addTo(params);
-        return this.getWebexHttp().get(
+        return this.getWebexHttp().getList(
+            getBaseUrl(),
+            new ListResponseReference<>(Device.class),
+            pageParams(start, max, filter)
+        );
+    }
+
+    public CompletableFuture<ListResponse<Device>> getDevicesAsync(int start, int max, DevicesFilter filter) {
+        return this.getWebexHttp().getListAsync(
             getBaseUrl(),
             new ListResponseReference<>(Device.class),
-            params
+            pageParams(start, max, filter)
+        );
+    }
+
+    /**
+     * Lazily streams all devices matching the filter, fetching pages of 1000 devices on demand and prefetching the
+     * next page in the background. Close the stream when not consuming it to the end.
+     */
+    public Stream<Device> streamDevices(DevicesFilter filter) {
+        return PagedIterator.stream(
+            STREAM_PAGE_SIZE,
+            start -> getDevicesAsync(start, STREAM_PAGE_SIZE, filter),
+            nextPage -> this.getWebexHttp().getListAsync(nextPage, new ListResponseReference<>(Device.class))
+        );
+    }
+
+    /**
+     * Visits all devices matching the filter page by page. Devices are parsed off the response stream one at a time,
+     * so memory use stays flat regardless of page size.
+     *
+     * @return The number of devices visited
+     */
+    public int forEachDevice(DevicesFilter filter, Consumer<? super Device> consumer) {
+        return ItemsPage.readAll(
+            STREAM_PAGE_SIZE,
+            start -> this.getWebexHttp().getItems(getBaseUrl(), Device.class, pageParams(start, STREAM_PAGE_SIZE, filter), consumer),
+            nextPage -> this.getWebexHttp().getItems(nextPage, Device.class, consumer)
         );
     }
 
@@ -56,6 +97,14 @@ public class DevicesApi extends WebexDeveloperApi {
         return this.getWebexHttp().post(urlFor("activationCode"), new CreateActivationCode(workspaceId), ActivationCode.class);
     }
 
+    private static Map<String, Object> pageParams(int start, int max, DevicesFilter filter) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("start", start);
+        params.put("max", max);
+        filter.addTo(params);
+        return params;
+    }
+
     static class CreateActivationCode {
         private final String workspaceId;
 
@@ -0,0 +1,332 @@
+package com.cisco.workspaceintegrations.api.http;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.base.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Circuit breaker with one circuit per {@link EndpointFamily}, so a degraded API, say <i>xapi/command</i>, fails fast
+ * with a {@link CircuitOpenException} instead of tying up threads until the request timeout, while other APIs such as
+ * queue polling and workspace lookups keep going.
+ * <p>
+ * A circuit opens when the share of failed or slow calls among the last <i>windowSize</i> calls reaches the failure
+ * rate threshold. Failures are connection errors, timeouts and 5xx responses; 4xx responses and 429 Too Many
+ * Requests are the caller's or the rate limiter's business. A request counts once, by its last attempt, so a 503
+ * the retry policy recovers from is a success. Long polls are never counted as slow.
+ * After the open duration the circuit is half open: a few probe requests are let through, and it closes if they all
+ * succeed or opens again on the first failure.
+ */
+public final class CircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final StateListener listener;
+    private final Ticker ticker;
+    private final ConcurrentHashMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    private CircuitBreaker(Builder builder) {
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallNanos = builder.slowCallDuration.toNanos();
+        this.openNanos = builder.openDuration.toNanos();
+        this.halfOpenProbes = builder.halfOpenProbes;
+        this.listener = builder.listener;
+        this.ticker = builder.ticker;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static CircuitBreaker defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Called before sending the request
+     *
+     * @throws CircuitOpenException If the circuit of the endpoint family is open
+     */
+    public void acquire(HttpRequest request) {
+        String family = EndpointFamily.of(request.uri());
+        if (!circuitFor(family).tryAcquire(ticker.read())) {
+            throw new CircuitOpenException(family, request.method(), request.uri());
+        }
+    }
+
+    /**
+     * Called once with the outcome of each request let through by {@link #acquire(HttpRequest)}, after its retries
+     *
+     * @param statusCode   The status code of the last response, or 0 if no response was received
+     * @param elapsedNanos The time from sending the last attempt until the response headers were received
+     */
+    public void onResult(HttpRequest request, int statusCode, long elapsedNanos) {
+        record(request, isFailure(statusCode) || elapsedNanos >= slowCallNanos);
+    }
+
+    /**
+     * Variant of {@link #onResult(HttpRequest, int, long)} for requests that are slow by design, like long polls
+     */
+    public void onResult(HttpRequest request, int statusCode) {
+        record(request, isFailure(statusCode));
+    }
+
+    /**
+     * Called instead of onResult for a request let through that was never sent, to give back its probe if half open
+     */
+    public void release(HttpRequest request) {
+        circuitFor(EndpointFamily.of(request.uri())).release();
+    }
+
+    public State getState(String endpointFamily) {
+        Circuit circuit = circuits.get(endpointFamily);
+        return circuit == null ? State.CLOSED : circuit.state();
+    }
+
+    public Map<String, State> getStates() {
+        Map<String, State> states = new TreeMap<>();
+        circuits.forEach((family, circuit) -> states.put(family, circuit.state()));
+        return states;
+    }
+
+    private void record(HttpRequest request, boolean failure) {
+        circuitFor(EndpointFamily.of(request.uri())).record(failure, ticker.read());
+    }
+
+    private static boolean isFailure(int statusCode) {
+        return statusCode == 0 || statusCode >= 500;
+    }
+
+    private Circuit circuitFor(String family) {
+        return circuits.computeIfAbsent(family, Circuit::new);
+    }
+
+    @FunctionalInterface
+    public interface StateListener {
+        void onStateChange(String endpointFamily, State from, State to);
+    }
+
+    private final class Circuit {
+        private final String family;
+        private final boolean[] outcomes = new boolean[windowSize];
+        private int position;
+        private int calls;
+        private int failures;
+        private State state = State.CLOSED;
+        private long openedAt;
+        private int probesInFlight;
+        private int probeSuccesses;
+
+        private Circuit(String family) {
+            this.family = family;
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        boolean tryAcquire(long now) {
+            State from;
+            State to;
+            boolean acquired;
+            synchronized (this) {
+                from = state;
+                if (state == State.OPEN && now - openedAt >= openNanos) {
+                    transition(State.HALF_OPEN);
+                }
+                if (state == State.HALF_OPEN) {
+                    acquired = probesInFlight < halfOpenProbes;
+                    if (acquired) {
+                        probesInFlight++;
+                    }
+                } else {
+                    acquired = state == State.CLOSED;
+                }
+                to = state;
+            }
+            notifyIfChanged(from, to);
+            return acquired;
+        }
+
+        void record(boolean failure, long now) {
+            State from;
+            State to;
+            synchronized (this) {
+                from = state;
+                if (state == State.CLOSED) {
+                    recordInWindow(failure);
+                    if (calls >= minimumCalls && (double) failures / calls >= failureRateThreshold) {
+                        open(now);
+                    }
+                } else if (state == State.HALF_OPEN) {
+                    probesInFlight = Math.max(0, probesInFlight - 1);
+                    if (failure) {
+                        open(now);
+                    } else if (++probeSuccesses >= halfOpenProbes) {
+                        transition(State.CLOSED);
+                    }
+                }
+                // Results arriving while open are late results of calls made before the circuit opened
+                to = state;
+            }
+            notifyIfChanged(from, to);
+        }
+
+        synchronized void release() {
+            if (state == State.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+            }
+        }
+
+        private void recordInWindow(boolean failure) {
+            if (calls == windowSize) {
+                if (outcomes[position]) {
+                    failures--;
+                }
+            } else {
+                calls++;
+            }
+            outcomes[position] = failure;
+            if (failure) {
+                failures++;
+            }
+            position = (position + 1) % windowSize;
+        }
+
+        private void open(long now) {
+            openedAt = now;
+            transition(State.OPEN);
+        }
+
+        private void transition(State to) {
+            state = to;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+            if (to == State.CLOSED) {
+                calls = 0;
+                failures = 0;
+                position = 0;
+            }
+        }
+
+        /**
+         * Notifies outside the lock, so listeners can safely query the breaker
+         */
+        private void notifyIfChanged(State from, State to) {
+            if (from == to) {
+                return;
+            }
+            LOG.info("Circuit for {} changed from {} to {}", family, from, to);
+            if (listener != null) {
+                try {
+                    listener.onStateChange(family, from, to);
+                } catch (Exception ex) {
+                    LOG.warn("Failure notifying circuit state change of {}", family, ex);
+                }
+            }
+        }
+    }
+
+    public static final class Builder {
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration slowCallDuration = Duration.ofSeconds(10);
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenProbes = 3;
+        private StateListener listener;
+        private Ticker ticker = Ticker.systemTicker();
+
+        private Builder() {
+        }
+
+        /**
+         * The number of most recent calls the failure rate is computed over. Defaults to 20.
+         */
+        public Builder windowSize(int val) {
+            checkArgument(val > 0, "windowSize must be positive");
+            windowSize = val;
+            return this;
+        }
+
+        /**
+         * The min number of calls in the window before the circuit can open. Defaults to 10.
+         */
+        public Builder minimumCalls(int val) {
+            checkArgument(val > 0, "minimumCalls must be positive");
+            minimumCalls = val;
+            return this;
+        }
+
+        /**
+         * The share of failed or slow calls that opens the circuit. Defaults to 0.5.
+         */
+        public Builder failureRateThreshold(double val) {
+            checkArgument(val > 0 && val <= 1, "failureRateThreshold must be between 0 and 1");
+            failureRateThreshold = val;
+            return this;
+        }
+
+        /**
+         * Calls taking at least this long count as failures, except long polls. Defaults to 10 seconds.
+         */
+        public Builder slowCallDuration(Duration val) {
+            slowCallDuration = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * How long an open circuit fails fast before letting probes through. Defaults to 30 seconds.
+         */
+        public Builder openDuration(Duration val) {
+            openDuration = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * The number of probe requests let through, and required to succeed, while half open. Defaults to 3.
+         */
+        public Builder halfOpenProbes(int val) {
+            checkArgument(val > 0, "halfOpenProbes must be positive");
+            halfOpenProbes = val;
+            return this;
+        }
+
+        public Builder listener(StateListener val) {
+            listener = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * The time source of the open duration. Defaults to the system ticker.
+         */
+        public Builder ticker(Ticker val) {
+            ticker = checkNotNull(val);
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.cisco.workspaceintegrations.api.http;
+
+import java.net.URI;
+
+/**
+ * Thrown without sending the request when the {@link CircuitBreaker} of its endpoint family is open
+ */
+public class CircuitOpenException extends HttpException {
+
+    private final String endpointFamily;
+
+    public CircuitOpenException(String endpointFamily, String httpMethod, URI uri) {
+        super(String.format("%s request rejected, the circuit for %s is open, URI: %s", httpMethod, endpointFamily, uri));
+        this.endpointFamily = endpointFamily;
+    }
+
+    public String getEndpointFamily() {
+        return endpointFamily;
+    }
+}
@@ -0,0 +1,264 @@
+package com.cisco.workspaceintegrations.api.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decodes gzip and deflate response bodies on the fly, as the compressed buffers arrive, before handing them to the
+ * wrapped body handler. Responses without a Content-Encoding, or with an unknown one, are passed through unchanged.
+ * Gzip bodies may hold several members, each checked against the CRC and size of its trailer.
+ */
+final class DecompressingBodyHandler<B> implements HttpResponse.BodyHandler<B> {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private final HttpResponse.BodyHandler<B> delegate;
+
+    DecompressingBodyHandler(HttpResponse.BodyHandler<B> delegate) {
+        this.delegate = checkNotNull(delegate);
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<B> apply(HttpResponse.ResponseInfo responseInfo) {
+        String encoding = responseInfo.headers()
+                                      .firstValue("Content-Encoding")
+                                      .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                                      .orElse("identity");
+        HttpResponse.BodySubscriber<B> downstream = delegate.apply(responseInfo);
+        return switch (encoding) {
+            case "gzip", "x-gzip" -> new InflatingSubscriber<>(downstream, true);
+            case "deflate" -> new InflatingSubscriber<>(downstream, false);
+            default -> downstream;
+        };
+    }
+
+    /**
+     * Inflates each received list of buffers into a list of decoded buffers, so demand maps one to one onto the
+     * downstream subscriber and only a chunk at a time is held in memory. When a list decodes to nothing, for
+     * instance while a header is still incomplete, the next one is requested instead.
+     */
+    private static final class InflatingSubscriber<B> implements HttpResponse.BodySubscriber<B> {
+
+        private static final int CHUNK_SIZE = 16 * 1024;
+        private static final int GZIP_MAGIC = 0x8b1f;
+        private static final int GZIP_TRAILER_SIZE = 8;
+        private static final int FHCRC = 2;
+        private static final int FEXTRA = 4;
+        private static final int FNAME = 8;
+        private static final int FCOMMENT = 16;
+
+        private final HttpResponse.BodySubscriber<B> downstream;
+        private final boolean gzip;
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private final CRC32 crc = new CRC32();
+        private Flow.Subscription subscription;
+        private Inflater inflater;
+        private boolean trailer;
+        private boolean failed;
+
+        private InflatingSubscriber(HttpResponse.BodySubscriber<B> downstream, boolean gzip) {
+            this.downstream = downstream;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public CompletionStage<B> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            if (failed) {
+                return;
+            }
+            List<ByteBuffer> decoded = new ArrayList<>();
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    decode(bytes, decoded);
+                }
+            } catch (IOException | DataFormatException ex) {
+                failed = true;
+                end();
+                downstream.onError(ex);
+                return;
+            }
+            if (decoded.isEmpty()) {
+                subscription.request(1);
+            } else {
+                downstream.onNext(decoded);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            end();
+            if (!failed) {
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (failed) {
+                return;
+            }
+            // Between gzip members nothing is pending, deflate bodies are a single stream
+            boolean complete = inflater == null ? pending.size() == 0 : !gzip && inflater.finished();
+            end();
+            if (complete) {
+                downstream.onComplete();
+            } else {
+                downstream.onError(new IOException("Truncated compressed response body"));
+            }
+        }
+
+        private void decode(byte[] bytes, List<ByteBuffer> decoded) throws IOException, DataFormatException {
+            byte[] input = bytes;
+            while (input.length > 0) {
+                if (inflater == null) {
+                    pending.write(input);
+                    input = pending.toByteArray();
+                    int headerSize = gzip ? gzipHeaderSize(input) : input.length < 2 ? -1 : 0;
+                    if (headerSize < 0) {
+                        return;
+                    }
+                    pending.reset();
+                    inflater = new Inflater(gzip || !isZlibWrapped(input));
+                    inflater.setInput(input, headerSize, input.length - headerSize);
+                } else if (trailer) {
+                    pending.write(input);
+                    if (pending.size() < GZIP_TRAILER_SIZE) {
+                        return;
+                    }
+                    input = pending.toByteArray();
+                    endMember(input);
+                    input = Arrays.copyOfRange(input, GZIP_TRAILER_SIZE, input.length);
+                    continue;
+                } else if (inflater.finished()) {
+                    // Anything after a deflate stream is ignored
+                    return;
+                } else {
+                    inflater.setInput(input);
+                }
+                input = inflate(input, decoded);
+            }
+        }
+
+        /**
+         * @return The input left after the compressed data, the start of the gzip trailer
+         */
+        private byte[] inflate(byte[] input, List<ByteBuffer> decoded) throws DataFormatException {
+            while (!inflater.finished()) {
+                byte[] chunk = new byte[CHUNK_SIZE];
+                int size = inflater.inflate(chunk);
+                if (size > 0) {
+                    crc.update(chunk, 0, size);
+                    decoded.add(ByteBuffer.wrap(chunk, 0, size));
+                } else if (inflater.needsDictionary()) {
+                    throw new DataFormatException("Preset dictionaries are not supported");
+                } else if (inflater.needsInput()) {
+                    return new byte[0];
+                }
+            }
+            if (!gzip) {
+                return new byte[0];
+            }
+            trailer = true;
+            int remaining = inflater.getRemaining();
+            return Arrays.copyOfRange(input, input.length - remaining, input.length);
+        }
+
+        /**
+         * Checks the trailer of a gzip member, the CRC32 and size modulo 2^32 of its uncompressed data, and gets
+         * ready for the next member, if any
+         */
+        private void endMember(byte[] trailerBytes) throws IOException {
+            if (littleEndianInt(trailerBytes, 0) != crc.getValue()) {
+                throw new IOException("Corrupt gzip response body, CRC mismatch");
+            }
+            if (littleEndianInt(trailerBytes, 4) != (inflater.getBytesWritten() & 0xffffffffL)) {
+                throw new IOException("Corrupt gzip response body, size mismatch");
+            }
+            inflater.end();
+            inflater = null;
+            trailer = false;
+            crc.reset();
+            pending.reset();
+        }
+
+        private void end() {
+            if (inflater != null) {
+                inflater.end();
+                inflater = null;
+            }
+        }
+
+        /**
+         * @return The size of the gzip header, or -1 if more bytes are needed
+         */
+        private static int gzipHeaderSize(byte[] bytes) throws IOException {
+            if (bytes.length < 10) {
+                return -1;
+            }
+            if ((bytes[0] & 0xff | (bytes[1] & 0xff) << 8) != GZIP_MAGIC || bytes[2] != 8) {
+                throw new IOException("Not a gzip response body");
+            }
+            int flags = bytes[3] & 0xff;
+            int position = 10;
+            if ((flags & FEXTRA) != 0) {
+                if (bytes.length < position + 2) {
+                    return -1;
+                }
+                position += 2 + (bytes[position] & 0xff | (bytes[position + 1] & 0xff) << 8);
+            }
+            for (int flag : new int[]{FNAME, FCOMMENT}) {
+                if ((flags & flag) != 0) {
+                    do {
+                        if (position >= bytes.length) {
+                            return -1;
+                        }
+                    } while (bytes[position++] != 0);
+                }
+            }
+            if ((flags & FHCRC) != 0) {
+                position += 2;
+            }
+            return position <= bytes.length ? position : -1;
+        }
+
+        /**
+         * Deflate is meant to be zlib wrapped, but some servers send raw deflate data
+         */
+        private static boolean isZlibWrapped(byte[] bytes) {
+            return bytes.length >= 2 && (bytes[0] & 0x0f) == 8 && ((bytes[0] & 0xff) << 8 | bytes[1] & 0xff) % 31 == 0;
+        }
+
+        private static long littleEndianInt(byte[] bytes, int offset) {
+            return (bytes[offset] & 0xffL)
+                | (bytes[offset + 1] & 0xffL) << 8
+                | (bytes[offset + 2] & 0xffL) << 16
+                | (bytes[offset + 3] & 0xffL) << 24;
+        }
+    }
+}
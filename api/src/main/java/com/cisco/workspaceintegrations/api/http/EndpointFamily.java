@@ -0,0 +1,34 @@
+package com.cisco.workspaceintegrations.api.http;
+
+import java.net.URI;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Splitter;
+
+/**
+ * Groups request URIs into endpoint families like <i>devices</i>, <i>workspaces</i>, <i>xapi/status</i> and
+ * <i>xapi/command</i>. Rate limits, circuit breakers and metrics are kept per family rather than per URI, as the
+ * Webex API limits are applied per API and not per resource.
+ */
+public final class EndpointFamily {
+
+    private static final Pattern VERSION_SEGMENT = Pattern.compile("v\\d+");
+    private static final Splitter PATH_SPLITTER = Splitter.on('/').omitEmptyStrings();
+
+    private EndpointFamily() {
+    }
+
+    public static String of(URI uri) {
+        List<String> segments = PATH_SPLITTER.splitToList(uri.getPath() == null ? "" : uri.getPath());
+        int first = !segments.isEmpty() && VERSION_SEGMENT.matcher(segments.get(0)).matches() ? 1 : 0;
+        if (first >= segments.size()) {
+            return String.valueOf(uri.getHost());
+        }
+        String family = segments.get(first);
+        if ("xapi".equals(family) && segments.size() > first + 1) {
+            return family + "/" + segments.get(first + 1);
+        }
+        return family;
+    }
+}
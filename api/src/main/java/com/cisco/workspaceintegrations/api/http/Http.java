@@ -1,57 +1,469 @@
 package com.cisco.workspaceintegrations.api.http;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.cisco.workspaceintegrations.api.jfr.HttpRequestEvent;
+import com.cisco.workspaceintegrations.api.metrics.Metrics;
+import com.cisco.workspaceintegrations.api.tracing.Span;
+import com.cisco.workspaceintegrations.api.tracing.Tracer;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class Http {
 
     private static final Logger LOG = LoggerFactory.getLogger(Http.class);
-    private static final Duration DEFAULT_CONNECTION_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_ERROR_BODY_BYTES = 64 * 1024;
+    private static final int NOT_MODIFIED = 304;
+    private static final String TRACKING_ID = "TrackingID";
+    private static final String NO_TRACKING_ID = "No TrackingID";
 
     private final HttpClient client;
+    private final Duration requestTimeout;
     private final String userAgent;
+    private final RateLimiter rateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final Metrics metrics;
+    private final Tracer tracer;
+    private final boolean responseCompression;
+    private final int requestCompressionMinBytes;
 
     public Http(String userAgent) {
-        this(HttpClient.newBuilder()
-                       .connectTimeout(DEFAULT_CONNECTION_TIMEOUT)
-                       .build(),
-             userAgent
-        );
+        this(builder(userAgent));
     }
 
     public Http(HttpClient client, String userAgent) {
-        this.client = checkNotNull(client);
-        this.userAgent = checkNotNull(userAgent);
+        this(builder(userAgent).client(client));
+    }
+
+    protected Http(Builder builder) {
+        this.client = builder.client != null ? builder.client : builder.transport.newClient(builder.executor);
+        this.requestTimeout = builder.transport.getRequestTimeout();
+        this.userAgent = checkNotNull(builder.userAgent);
+        this.rateLimiter = checkNotNull(builder.rateLimiter);
+        this.retryPolicy = checkNotNull(builder.retryPolicy);
+        this.circuitBreaker = builder.circuitBreaker;
+        this.metrics = builder.metrics;
+        this.tracer = builder.tracer;
+        this.responseCompression = builder.responseCompression;
+        this.requestCompressionMinBytes = builder.requestCompressionMinBytes;
+    }
+
+    public static Builder builder(String userAgent) {
+        return new Builder(userAgent);
     }
 
     public HttpRequest.Builder defaultRequestBuilder(URI uri) {
-        return HttpRequest.newBuilder()
-                          .timeout(DEFAULT_CONNECTION_TIMEOUT)
-                          .header("User-Agent", userAgent)
-                          .uri(uri);
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                                                 .timeout(requestTimeout)
+                                                 .header("User-Agent", userAgent)
+                                                 .uri(uri);
+        if (responseCompression) {
+            builder.header("Accept-Encoding", DecompressingBodyHandler.ACCEPT_ENCODING);
+        }
+        return builder;
+    }
+
+    /**
+     * A text request body, gzip compressed when request compression is enabled and the body is large enough, in
+     * which case the Content-Encoding header is added to the request builder.
+     */
+    public HttpRequest.BodyPublisher bodyPublisher(HttpRequest.Builder requestBuilder, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (requestCompressionMinBytes <= 0 || bytes.length < requestCompressionMinBytes) {
+            return HttpRequest.BodyPublishers.ofByteArray(bytes);
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(bytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        requestBuilder.header("Content-Encoding", "gzip");
+        return HttpRequest.BodyPublishers.ofByteArray(compressed.toByteArray());
     }
 
+    /**
+     * Executes the request, throwing an {@link HttpException} on unsuccessful responses. A 304 Not Modified in reply
+     * to a conditional request, with an If-None-Match or If-Modified-Since header, is returned rather than thrown.
+     */
     public HttpResponse<String> execute(HttpRequest request) {
-        LOG.debug("{}: {}", request.method(), request.uri());
-        HttpResponse<String> response;
+        return execute(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Execute with a custom body handler, say {@link HttpResponse.BodyHandlers#ofInputStream()} to stream large
+     * response bodies. For unsuccessful responses the body is read as text into the {@link HttpException}.
+     * A successful streamed body must be closed by the caller.
+     */
+    public <B> HttpResponse<B> execute(HttpRequest request, HttpResponse.BodyHandler<B> bodyHandler) {
+        return execute(request, bodyHandler, false);
+    }
+
+    /**
+     * Executes a long poll, a GET the server holds until it has something to return or its poll timeout passes.
+     * Its duration says nothing about the health of the endpoint, so the circuit breaker does not count it as slow.
+     */
+    public HttpResponse<String> executeLongPoll(HttpRequest request) {
+        return execute(request, HttpResponse.BodyHandlers.ofString(), true);
+    }
+
+    private <B> HttpResponse<B> execute(HttpRequest request, HttpResponse.BodyHandler<B> bodyHandler, boolean longPoll) {
+        Span span = startSpan(request);
+        try (Span.Scope scope = span.makeCurrent()) {
+            HttpResponse<B> response = send(traced(request, span), bodyHandler, longPoll);
+            endSpan(span, response, null);
+            return response;
+        } catch (RuntimeException ex) {
+            endSpan(span, null, ex);
+            throw ex;
+        }
+    }
+
+    private <B> HttpResponse<B> send(HttpRequest request, HttpResponse.BodyHandler<B> bodyHandler, boolean longPoll) {
+        retryPolicy.onRequest();
+        acquireCircuit(request);
+        LastAttempt last = new LastAttempt();
+        try {
+            for (int attempt = 0; ; attempt++) {
+                pause(rateLimiter.reserve(request), request);
+                LOG.debug("{}: {}", request.method(), request.uri());
+                HttpRequestEvent event = new HttpRequestEvent();
+                event.begin();
+                long start = System.nanoTime();
+                HttpResponse<B> response;
+                try {
+                    response = client.send(request, decoding(bodyHandler));
+                } catch (Exception ex) {
+                    event.complete(request, null);
+                    onAttempt(request, 0, start, last);
+                    if (ex instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new HttpException(request.method(), request.uri(), ex);
+                }
+                event.complete(request, response);
+                onAttempt(request, response.statusCode(), start, last);
+                Optional<Duration> retryDelay = onResponse(request, response, attempt);
+                if (retryDelay.isEmpty()) {
+                    return checkResponse(request, response);
+                }
+                discard(response);
+                pause(retryDelay.get().toNanos(), request);
+            }
+        } finally {
+            onOutcome(request, last, longPoll);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute(HttpRequest)}. The returned future completes exceptionally with an
+     * {@link HttpException} on the same conditions as the blocking variant throws one.
+     * Rate limiting and retry delays are applied without blocking any thread.
+     */
+    public CompletableFuture<HttpResponse<String>> executeAsync(HttpRequest request) {
+        retryPolicy.onRequest();
+        Span span = startSpan(request);
+        return guardedAsync(traced(request, span))
+            .whenComplete((response, error) -> endSpan(span, response, error != null ? unwrap(error) : null));
+    }
+
+    /**
+     * Runs the attempts of the request within a single pass of the circuit breaker
+     */
+    private CompletableFuture<HttpResponse<String>> guardedAsync(HttpRequest request) {
+        try {
+            acquireCircuit(request);
+        } catch (CircuitOpenException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        LastAttempt last = new LastAttempt();
+        CompletableFuture<HttpResponse<String>> future;
         try {
-            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            future = executeAsync(request, 0, last);
+        } catch (RuntimeException ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        return future.whenComplete((response, error) -> onOutcome(request, last, false));
+    }
+
+    private CompletableFuture<HttpResponse<String>> executeAsync(HttpRequest request, int attempt, LastAttempt last) {
+        return after(rateLimiter.reserve(request), () -> sendAsync(request, last))
+            .thenCompose(response -> {
+                Optional<Duration> retryDelay = onResponse(request, response, attempt);
+                if (retryDelay.isEmpty()) {
+                    return CompletableFuture.completedFuture(checkResponse(request, response));
+                }
+                return after(retryDelay.get().toNanos(), () -> executeAsync(request, attempt + 1, last));
+            });
+    }
+
+    private CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request, LastAttempt last) {
+        LOG.debug("{} (async): {}", request.method(), request.uri());
+        CompletableFuture<HttpResponse<String>> future;
+        HttpRequestEvent event = new HttpRequestEvent();
+        long start;
+        try {
+            event.begin();
+            start = System.nanoTime();
+            future = client.sendAsync(request, decoding(HttpResponse.BodyHandlers.ofString()));
         } catch (Exception ex) {
+            return CompletableFuture.failedFuture(new HttpException(request.method(), request.uri(), ex));
+        }
+        return future.handle((response, error) -> {
+            event.complete(request, error != null ? null : response);
+            onAttempt(request, error != null ? 0 : response.statusCode(), start, last);
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                throw cause instanceof HttpException ? (HttpException) cause : new HttpException(request.method(), request.uri(), cause);
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Opens connections to the origins of the given URLs in parallel, so the first requests to them do not pay for
+     * the TCP and TLS handshakes. Each origin gets a HEAD request whose response, or failure, is ignored.
+     * Rate limiting and retries do not apply.
+     *
+     * @return Completes when all origins have replied, failed or timed out; never exceptionally
+     */
+    public CompletableFuture<Void> prewarm(Collection<URI> urls, Duration timeout) {
+        Set<URI> origins = new LinkedHashSet<>();
+        for (URI url : urls) {
+            if (url != null && url.getScheme() != null && url.getHost() != null) {
+                origins.add(URI.create(url.getScheme() + "://" + url.getRawAuthority() + "/"));
+            }
+        }
+        CompletableFuture<?>[] handshakes = origins.stream().map(origin -> {
+            HttpRequest request = HttpRequest.newBuilder(origin)
+                                             .timeout(timeout)
+                                             .header("User-Agent", userAgent)
+                                             .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                                             .build();
+            long start = System.nanoTime();
+            return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                         .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                         .handle((response, error) -> {
+                             if (error != null) {
+                                 LOG.debug("Unable to prewarm a connection to {}", origin, unwrap(error));
+                             } else {
+                                 LOG.debug("Prewarmed a {} connection to {} in {} ms", response.version(), origin,
+                                           TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                             }
+                             return null;
+                         });
+        }).toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(handshakes);
+    }
+
+    private Span startSpan(HttpRequest request) {
+        String family = EndpointFamily.of(request.uri());
+        return tracer.startSpan(request.method() + " " + family)
+                     .setAttribute(Span.HTTP_METHOD, request.method())
+                     .setAttribute(Span.URL, request.uri().toString())
+                     .setAttribute(Span.ENDPOINT_FAMILY, family);
+    }
+
+    /**
+     * Adds the trace context headers of the tracer, if any, to a copy of the request
+     */
+    private HttpRequest traced(HttpRequest request, Span span) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        tracer.inject(span, headers::put);
+        if (headers.isEmpty()) {
+            return request;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        headers.forEach(builder::setHeader);
+        return builder.build();
+    }
+
+    private static void endSpan(Span span, HttpResponse<?> response, Throwable error) {
+        if (response != null) {
+            span.setAttribute(Span.HTTP_STATUS_CODE, response.statusCode());
+            response.headers().firstValue(TRACKING_ID).ifPresent(id -> span.setAttribute(Span.TRACKING_ID, id));
+        } else if (error instanceof HttpException ex && ex.getStatusCode() != 0) {
+            span.setAttribute(Span.HTTP_STATUS_CODE, ex.getStatusCode());
+            ex.getTrackingId()
+              .filter(id -> !NO_TRACKING_ID.equals(id))
+              .ifPresent(id -> span.setAttribute(Span.TRACKING_ID, id));
+        }
+        if (error != null) {
+            span.recordException(error);
+        }
+        span.end();
+    }
+
+    private void acquireCircuit(HttpRequest request) {
+        if (circuitBreaker != null) {
+            circuitBreaker.acquire(request);
+        }
+    }
+
+    /**
+     * Records every attempt in the metrics, while the circuit breaker only gets the last one, see {@link #onOutcome}
+     */
+    private void onAttempt(HttpRequest request, int statusCode, long start, LastAttempt last) {
+        long elapsedNanos = System.nanoTime() - start;
+        last.statusCode = statusCode;
+        last.elapsedNanos = elapsedNanos;
+        metrics.recordRequest(EndpointFamily.of(request.uri()), statusCode, elapsedNanos);
+    }
+
+    /**
+     * Reports the request to the circuit breaker once all its attempts are done. A request that was never sent, say
+     * when interrupted while rate limited, has no outcome and only gives back its pass.
+     */
+    private void onOutcome(HttpRequest request, LastAttempt last, boolean longPoll) {
+        if (circuitBreaker == null) {
+            return;
+        }
+        if (!last.isSent()) {
+            circuitBreaker.release(request);
+        } else if (longPoll) {
+            circuitBreaker.onResult(request, last.statusCode);
+        } else {
+            circuitBreaker.onResult(request, last.statusCode, last.elapsedNanos);
+        }
+    }
+
+    private <B> HttpResponse.BodyHandler<B> decoding(HttpResponse.BodyHandler<B> bodyHandler) {
+        return responseCompression ? new DecompressingBodyHandler<>(bodyHandler) : bodyHandler;
+    }
+
+    private static <T> CompletableFuture<T> after(long delayNanos, Supplier<CompletableFuture<T>> action) {
+        if (delayNanos <= 0) {
+            return action.get();
+        }
+        return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS))
+                                .thenCompose(ignored -> action.get());
+    }
+
+    private Optional<Duration> onResponse(HttpRequest request, HttpResponse<?> response, int attempt) {
+        Optional<Duration> retryAfter = retryAfter(response.headers());
+        rateLimiter.onResponse(request, response.statusCode(), retryAfter);
+        if (isSuccess(request, response)) {
+            return Optional.empty();
+        }
+        Optional<Duration> retryDelay = retryPolicy.retryDelay(request, response.statusCode(), attempt, retryAfter);
+        retryDelay.ifPresent(delay -> LOG.info("{} {} failed with status {}, retrying in {} ms",
+                                               request.method(), request.uri(), response.statusCode(), delay.toMillis()));
+        return retryDelay;
+    }
+
+    private static void pause(long nanos, HttpRequest request) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
             throw new HttpException(request.method(), request.uri(), ex);
         }
-        if (response.statusCode() >= 200 && response.statusCode() <= 299) {
+    }
+
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Parses the Retry-After header, which is either a number of seconds or an HTTP date.
+     */
+    public static Optional<Duration> retryAfter(HttpHeaders headers) {
+        return headers.firstValue("Retry-After").flatMap(value -> {
+            try {
+                return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim()))));
+            } catch (NumberFormatException ex) {
+                try {
+                    Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    Duration delay = Duration.between(Instant.now(), at);
+                    return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+                } catch (DateTimeParseException ignored) {
+                    LOG.debug("Ignoring unparsable Retry-After header: {}", value);
+                    return Optional.empty();
+                }
+            }
+        });
+    }
+
+    /**
+     * 2xx, or 304 Not Modified in reply to a conditional request, in which case the caller reuses what it has
+     */
+    private static boolean isSuccess(HttpRequest request, HttpResponse<?> response) {
+        int statusCode = response.statusCode();
+        return statusCode >= 200 && statusCode <= 299 || statusCode == NOT_MODIFIED && isConditional(request);
+    }
+
+    private static boolean isConditional(HttpRequest request) {
+        return request.headers().firstValue("If-None-Match").isPresent()
+            || request.headers().firstValue("If-Modified-Since").isPresent();
+    }
+
+    private <B> HttpResponse<B> checkResponse(HttpRequest request, HttpResponse<B> response) {
+        if (isSuccess(request, response)) {
             return response;
         }
-        String trackingId = response.headers().firstValue("TrackingID").orElse("No TrackingID");
-        throw new HttpException(response.statusCode(), request.method(), response.body(), response.uri(), trackingId);
+        String trackingId = response.headers().firstValue(TRACKING_ID).orElse(NO_TRACKING_ID);
+        throw new HttpException(response.statusCode(), request.method(), errorBody(response), response.uri(), trackingId);
+    }
+
+    private static String errorBody(HttpResponse<?> response) {
+        Object body = response.body();
+        if (body instanceof InputStream in) {
+            try (in) {
+                return new String(in.readNBytes(MAX_ERROR_BODY_BYTES), StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                return "Unable to read error body: " + ex.getMessage();
+            }
+        }
+        return body == null ? null : body.toString();
+    }
+
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof InputStream in) {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                LOG.debug("Failed closing discarded response body", ex);
+            }
+        }
     }
 
     public HttpClient getClient() {
@@ -61,4 +473,142 @@ public class Http {
     public String getUserAgent() {
         return userAgent;
     }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public Optional<CircuitBreaker> getCircuitBreaker() {
+        return Optional.ofNullable(circuitBreaker);
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Tracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * The last attempt of a request, which the circuit breaker judges the request by
+     */
+    private static final class LastAttempt {
+        private volatile int statusCode = -1;
+        private volatile long elapsedNanos;
+
+        boolean isSent() {
+            return statusCode >= 0;
+        }
+    }
+
+    public static class Builder {
+        private final String userAgent;
+        private HttpClient client;
+        private HttpTransport transport = HttpTransport.defaults();
+        private Executor executor;
+        private RateLimiter rateLimiter = RateLimiter.unlimited();
+        private RetryPolicy retryPolicy = RetryPolicy.defaults();
+        private CircuitBreaker circuitBreaker;
+        private Metrics metrics = Metrics.noop();
+        private Tracer tracer = Tracer.noop();
+        private boolean responseCompression = true;
+        private int requestCompressionMinBytes;
+
+        protected Builder(String userAgent) {
+            this.userAgent = checkNotNull(userAgent);
+        }
+
+        /**
+         * The HTTP client to use. Defaults to a client built from the {@link #transport(HttpTransport)} settings.
+         */
+        public Builder client(HttpClient val) {
+            client = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Transport settings of the default HTTP client, except the request timeout which applies to any client.
+         * Defaults to {@link HttpTransport#defaults()}.
+         */
+        public Builder transport(HttpTransport val) {
+            transport = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * The executor running async tasks of the default HTTP client, overriding the one of the transport settings.
+         * Ignored when a client is given.
+         */
+        public Builder executor(Executor val) {
+            executor = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Client side rate limiting. Default is no limiting.
+         */
+        public Builder rateLimiter(RateLimiter val) {
+            rateLimiter = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Retries on 429 and 5xx gateway errors. Defaults to {@link RetryPolicy#defaults()}.
+         */
+        public Builder retryPolicy(RetryPolicy val) {
+            retryPolicy = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Fail fast on endpoint families that keep failing or timing out. Default is no circuit breaking.
+         */
+        public Builder circuitBreaker(CircuitBreaker val) {
+            circuitBreaker = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Where to record request counts and latencies, token refreshes and queue polls. Default is no metrics.
+         */
+        public Builder metrics(Metrics val) {
+            metrics = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Where to report spans of requests, token fetches, queue polls and message consumers. Default is no tracing.
+         */
+        public Builder tracer(Tracer val) {
+            tracer = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Ask for gzip or deflate compressed responses, decoded as they are received. Enabled by default.
+         */
+        public Builder responseCompression(boolean val) {
+            responseCompression = val;
+            return this;
+        }
+
+        /**
+         * Gzip compress request bodies of at least the given size, e.g. large bulk command payloads.
+         * Disabled (0) by default, as not every endpoint accepts compressed requests.
+         */
+        public Builder requestCompression(int minBytes) {
+            checkArgument(minBytes >= 0, "minBytes cannot be negative");
+            requestCompressionMinBytes = minBytes;
+            return this;
+        }
+
+        public Http build() {
+            return new Http(this);
+        }
+    }
 }
@@ -16,6 +16,16 @@ public class HttpException extends RuntimeException {
         this.trackingId = null;
     }
 
+    /**
+     * For failures raised on the client side, without a request being sent
+     */
+    protected HttpException(String message) {
+        super(message);
+        this.statusCode = 0;
+        this.errorBody = null;
+        this.trackingId = null;
+    }
+
     public HttpException(int statusCode, String httpMethod, String errorBody, URI uri, String trackingId) {
         super(String.format("%s request failed, Status: %s, TrackingID: %s, URI: %s, Body: %s",
                             httpMethod, statusCode, trackingId, uri, errorBody));
@@ -0,0 +1,191 @@
+package com.cisco.workspaceintegrations.api.http;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Transport settings of the {@link HttpClient} built by {@link Http} when none is given.
+ * <p>
+ * HTTP/2 is preferred, multiplexing concurrent requests over a single connection per host, with a fallback to
+ * HTTP/1.1 for hosts that do not support it. The keep-alive timeout and the max number of concurrent HTTP/2 streams
+ * are JVM wide settings of the JDK client, read when the first client is created. As they affect every client of the
+ * JVM, they are only applied when opted in to with {@link Builder#jvmWideSettings(boolean)}, and then only if not
+ * already set with the <i>jdk.httpclient.keepalive.timeout</i> and <i>jdk.httpclient.maxstreams</i> system
+ * properties. They have no effect once a client has been created.
+ */
+public final class HttpTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpTransport.class);
+    private static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+    private static final String MAX_STREAMS_PROPERTY = "jdk.httpclient.maxstreams";
+
+    private final HttpClient.Version version;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final Executor executor;
+    private final Duration keepAlive;
+    private final Integer maxStreams;
+    private final boolean jvmWideSettings;
+
+    private HttpTransport(Builder builder) {
+        this.version = builder.version;
+        this.connectTimeout = builder.connectTimeout;
+        this.requestTimeout = builder.requestTimeout;
+        this.executor = builder.executor;
+        this.keepAlive = builder.keepAlive;
+        this.maxStreams = builder.maxStreams;
+        this.jvmWideSettings = builder.jvmWideSettings;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static HttpTransport defaults() {
+        return builder().build();
+    }
+
+    public HttpClient.Version getVersion() {
+        return version;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public Optional<Executor> getExecutor() {
+        return Optional.ofNullable(executor);
+    }
+
+    public Optional<Duration> getKeepAlive() {
+        return Optional.ofNullable(keepAlive);
+    }
+
+    public Optional<Integer> getMaxStreams() {
+        return Optional.ofNullable(maxStreams);
+    }
+
+    public boolean isJvmWideSettings() {
+        return jvmWideSettings;
+    }
+
+    /**
+     * Builds a client with these settings
+     *
+     * @param executor Overrides the executor of these settings when not null
+     */
+    HttpClient newClient(Executor executor) {
+        if (jvmWideSettings) {
+            getKeepAlive().ifPresent(val -> setIfAbsent(KEEP_ALIVE_PROPERTY, String.valueOf(Math.max(1, val.toSeconds()))));
+            getMaxStreams().ifPresent(val -> setIfAbsent(MAX_STREAMS_PROPERTY, String.valueOf(val)));
+        } else if (keepAlive != null || maxStreams != null) {
+            LOG.warn("Ignoring keepAlive and maxStreams, JVM wide settings are not enabled");
+        }
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                                               .version(version)
+                                               .connectTimeout(connectTimeout);
+        Executor clientExecutor = executor != null ? executor : this.executor;
+        if (clientExecutor != null) {
+            builder.executor(clientExecutor);
+        }
+        return builder.build();
+    }
+
+    private static void setIfAbsent(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        } else {
+            LOG.debug("Keeping {}={}", property, System.getProperty(property));
+        }
+    }
+
+    public static final class Builder {
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private Duration connectTimeout = Duration.ofSeconds(30);
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private Executor executor;
+        private Duration keepAlive;
+        private Integer maxStreams;
+        private boolean jvmWideSettings;
+
+        private Builder() {
+        }
+
+        /**
+         * The preferred HTTP version. Defaults to HTTP/2.
+         */
+        public Builder version(HttpClient.Version val) {
+            version = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Defaults to 30 seconds.
+         */
+        public Builder connectTimeout(Duration val) {
+            connectTimeout = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * The timeout of each request, until the response headers are received. Defaults to 30 seconds.
+         */
+        public Builder requestTimeout(Duration val) {
+            requestTimeout = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * The executor running async tasks of the client. Defaults to the JDK client's own cached thread pool.
+         */
+        public Builder executor(Executor val) {
+            executor = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * How long idle connections are kept open for reuse. Defaults to the JDK default of 20 minutes.
+         * Requires {@link #jvmWideSettings(boolean)}.
+         */
+        public Builder keepAlive(Duration val) {
+            checkArgument(!val.isNegative() && !val.isZero(), "keepAlive must be positive");
+            keepAlive = val;
+            return this;
+        }
+
+        /**
+         * The max number of concurrent streams per HTTP/2 connection. Defaults to the JDK default of 100.
+         * Requires {@link #jvmWideSettings(boolean)}.
+         */
+        public Builder maxStreams(int val) {
+            checkArgument(val > 0, "maxStreams must be positive");
+            maxStreams = val;
+            return this;
+        }
+
+        /**
+         * Allows applying the keep-alive and max streams settings as system properties, which changes them for every
+         * client of the JVM. Disabled by default.
+         */
+        public Builder jvmWideSettings(boolean val) {
+            jvmWideSettings = val;
+            return this;
+        }
+
+        public HttpTransport build() {
+            return new HttpTransport(this);
+        }
+    }
+}
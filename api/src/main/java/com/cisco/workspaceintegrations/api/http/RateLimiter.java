@@ -0,0 +1,33 @@
+package com.cisco.workspaceintegrations.api.http;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Client side rate limiting of the requests executed by {@link Http}.
+ * <p>
+ * Rather than blocking, a limiter hands out reservations: {@link #reserve(HttpRequest)} returns how long the caller
+ * must wait before sending the request. This lets both the blocking and the async execution paths share the limiter.
+ */
+public interface RateLimiter {
+
+    /**
+     * Reserve a permit for the request.
+     *
+     * @return The number of nanoseconds to wait before the request can be sent, 0 if it can be sent right away
+     */
+    long reserve(HttpRequest request);
+
+    /**
+     * Feedback from the server, called for every response. Lets adaptive limiters back off on 429 Too Many Requests.
+     *
+     * @param retryAfter The value of the Retry-After header, if any
+     */
+    default void onResponse(HttpRequest request, int statusCode, Optional<Duration> retryAfter) {
+    }
+
+    static RateLimiter unlimited() {
+        return request -> 0;
+    }
+}
@@ -0,0 +1,155 @@
+package com.cisco.workspaceintegrations.api.http;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decides if and when {@link Http} retries a failed request.
+ * <p>
+ * Idempotent methods are retried on 429 Too Many Requests, 502 Bad Gateway, 503 Service Unavailable and
+ * 504 Gateway Timeout. Other methods, such as xAPI command POSTs, may have been processed despite a 5xx, so they are
+ * only retried on 429, which rejects the request before it is processed, and on a 503 with a Retry-After header,
+ * the server's way of telling it was not processed.
+ * The Retry-After header is honoured when present, otherwise the delay is a jittered exponential backoff.
+ * <p>
+ * Retries are budgeted: each request earns <i>budgetRatio</i> retry tokens (up to a cap), and each retry spends one.
+ * When the service is overloaded the budget runs dry and requests fail fast instead of multiplying the load.
+ */
+public final class RetryPolicy {
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+
+    private final int maxRetries;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final double budgetRatio;
+    private final double maxBudget;
+    private double budget;
+
+    private RetryPolicy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.baseDelay = builder.baseDelay;
+        this.maxDelay = builder.maxDelay;
+        this.budgetRatio = builder.budgetRatio;
+        this.maxBudget = builder.maxBudget;
+        this.budget = builder.maxBudget;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static RetryPolicy defaults() {
+        return builder().build();
+    }
+
+    public static RetryPolicy none() {
+        return builder().maxRetries(0).build();
+    }
+
+    /**
+     * Called once for every new request (not for the retries), to earn retry budget.
+     */
+    public synchronized void onRequest() {
+        budget = Math.min(maxBudget, budget + budgetRatio);
+    }
+
+    /**
+     * @param attempt    The number of retries already done for this request, 0 after the first attempt
+     * @param retryAfter The value of the Retry-After header, if any
+     * @return The delay before retrying, or empty if the request should not be retried
+     */
+    public Optional<Duration> retryDelay(HttpRequest request, int statusCode, int attempt, Optional<Duration> retryAfter) {
+        if (attempt >= maxRetries || !isRetryable(request.method(), statusCode, retryAfter.isPresent())) {
+            return Optional.empty();
+        }
+        if (retryAfter.isPresent() && retryAfter.get().compareTo(maxDelay) > 0) {
+            return Optional.empty();
+        }
+        if (!spendBudget()) {
+            return Optional.empty();
+        }
+        return Optional.of(retryAfter.orElseGet(() -> backoff(attempt)));
+    }
+
+    private boolean isRetryable(String method, int statusCode, boolean hasRetryAfter) {
+        return switch (statusCode) {
+            case 429 -> true;
+            case 503 -> hasRetryAfter || IDEMPOTENT_METHODS.contains(method);
+            case 502, 504 -> IDEMPOTENT_METHODS.contains(method);
+            default -> false;
+        };
+    }
+
+    private synchronized boolean spendBudget() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    @SuppressFBWarnings("PREDICTABLE_RANDOM")
+    private Duration backoff(int attempt) {
+        long ceiling = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(attempt, 20));
+        // Half fixed, half random ("equal jitter") to avoid both thundering herds and near-zero delays
+        long half = Math.max(1, ceiling / 2);
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    public static final class Builder {
+        private int maxRetries = 3;
+        private Duration baseDelay = Duration.ofMillis(500);
+        private Duration maxDelay = Duration.ofSeconds(30);
+        private double budgetRatio = 0.1;
+        private double maxBudget = 10;
+
+        private Builder() {
+        }
+
+        public Builder maxRetries(int val) {
+            checkArgument(val >= 0, "maxRetries must be >= 0");
+            maxRetries = val;
+            return this;
+        }
+
+        /**
+         * The initial backoff delay, doubled for each retry. Default 500 ms.
+         */
+        public Builder baseDelay(Duration val) {
+            baseDelay = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * The max delay between retries. A Retry-After longer than this fails the request. Default 30 seconds.
+         */
+        public Builder maxDelay(Duration val) {
+            maxDelay = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * @param ratio     Retries allowed per request on average, default 0.1 (10%)
+         * @param maxTokens The max number of retries that can be saved up for bursts, default 10
+         */
+        public Builder budget(double ratio, double maxTokens) {
+            checkArgument(ratio >= 0 && maxTokens >= 0, "The retry budget must be >= 0");
+            budgetRatio = ratio;
+            maxBudget = maxTokens;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
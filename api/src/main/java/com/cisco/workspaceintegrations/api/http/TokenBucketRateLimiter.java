@@ -0,0 +1,168 @@
+package com.cisco.workspaceintegrations.api.http;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Adaptive token bucket rate limiter with one bucket per {@link EndpointFamily}.
+ * <p>
+ * Each bucket starts at its configured rate. A 429 Too Many Requests response pauses the bucket for the Retry-After
+ * period and cuts its rate in half, while successful responses slowly grow the rate back towards the configured
+ * limit (AIMD). This keeps the throughput close to what the server accepts instead of oscillating between bursts
+ * and 429 storms.
+ */
+public final class TokenBucketRateLimiter implements RateLimiter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TokenBucketRateLimiter.class);
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_FRACTION = 0.02;
+    private static final double MIN_RATE_FRACTION = 0.05;
+
+    private final Limit defaultLimit;
+    private final Map<String, Limit> limits;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private TokenBucketRateLimiter(Builder builder) {
+        this.defaultLimit = builder.defaultLimit;
+        this.limits = Map.copyOf(builder.limits);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public long reserve(HttpRequest request) {
+        Bucket bucket = bucketFor(request);
+        return bucket == null ? 0 : bucket.reserve(System.nanoTime());
+    }
+
+    @Override
+    public void onResponse(HttpRequest request, int statusCode, Optional<Duration> retryAfter) {
+        Bucket bucket = bucketFor(request);
+        if (bucket == null) {
+            return;
+        }
+        if (statusCode == 429) {
+            bucket.throttled(System.nanoTime(), retryAfter.orElse(Duration.ofSeconds(1)));
+        } else if (statusCode >= 200 && statusCode <= 299) {
+            bucket.succeeded();
+        }
+    }
+
+    /**
+     * @return The current (adapted) rate for the endpoint family in permits per second
+     */
+    public double getCurrentRate(String endpointFamily) {
+        Bucket bucket = buckets.get(endpointFamily);
+        if (bucket != null) {
+            return bucket.currentRate();
+        }
+        Limit limit = limits.getOrDefault(endpointFamily, defaultLimit);
+        return limit == null ? Double.POSITIVE_INFINITY : limit.permitsPerSecond();
+    }
+
+    private Bucket bucketFor(HttpRequest request) {
+        String family = EndpointFamily.of(request.uri());
+        Limit limit = limits.getOrDefault(family, defaultLimit);
+        if (limit == null) {
+            return null;
+        }
+        return buckets.computeIfAbsent(family, f -> new Bucket(f, limit));
+    }
+
+    private record Limit(double permitsPerSecond, int burst) {
+    }
+
+    private static final class Bucket {
+        private final String family;
+        private final Limit limit;
+        private double rate;
+        private double tokens;
+        private long lastRefill;
+        private long pausedUntil;
+
+        Bucket(String family, Limit limit) {
+            this.family = family;
+            this.limit = limit;
+            this.rate = limit.permitsPerSecond();
+            this.tokens = limit.burst();
+            this.lastRefill = System.nanoTime();
+            this.pausedUntil = lastRefill;
+        }
+
+        synchronized long reserve(long now) {
+            refill(now);
+            tokens -= 1;
+            long wait = tokens >= 0 ? 0 : (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+            return Math.max(wait, pausedUntil - now);
+        }
+
+        synchronized void throttled(long now, Duration retryAfter) {
+            refill(now);
+            pausedUntil = Math.max(pausedUntil, now + retryAfter.toNanos());
+            rate = Math.max(limit.permitsPerSecond() * MIN_RATE_FRACTION, rate * DECREASE_FACTOR);
+            tokens = Math.min(tokens, 0);
+            LOG.info("Throttled on {}, pausing for {} and reducing the rate to {}/s", family, retryAfter, rate);
+        }
+
+        synchronized void succeeded() {
+            rate = Math.min(limit.permitsPerSecond(), rate + limit.permitsPerSecond() * INCREASE_FRACTION);
+        }
+
+        synchronized double currentRate() {
+            return rate;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(limit.burst(), tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+                lastRefill = now;
+            }
+        }
+    }
+
+    public static final class Builder {
+        private Limit defaultLimit;
+        private final Map<String, Limit> limits = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * The limit for endpoint families without a specific limit. Without a default, those are not limited.
+         */
+        public Builder defaultLimit(double permitsPerSecond, int burst) {
+            defaultLimit = newLimit(permitsPerSecond, burst);
+            return this;
+        }
+
+        /**
+         * @param endpointFamily As given by {@link EndpointFamily#of}, say <i>xapi/command</i> or <i>devices</i>
+         */
+        public Builder limit(String endpointFamily, double permitsPerSecond, int burst) {
+            limits.put(endpointFamily, newLimit(permitsPerSecond, burst));
+            return this;
+        }
+
+        private static Limit newLimit(double permitsPerSecond, int burst) {
+            checkArgument(permitsPerSecond > 0, "The rate must be positive");
+            checkArgument(burst > 0, "The burst must be positive");
+            return new Limit(permitsPerSecond, burst);
+        }
+
+        public TokenBucketRateLimiter build() {
+            return new TokenBucketRateLimiter(this);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.cisco.workspaceintegrations.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An {@link com.cisco.workspaceintegrations.api.caching.InMemoryCache} loading an entry, including background
+ * refreshes
+ */
+@Name("com.cisco.workspaceintegrations.CacheLoad")
+@Label("Cache Load")
+@Category({"Webex Workspace Integrations", "Cache"})
+public final class CacheLoadEvent extends jdk.jfr.Event {
+
+    @Label("Cache")
+    private String cacheName;
+
+    @Label("Key")
+    private String key;
+
+    @Label("Success")
+    private boolean success;
+
+    public void complete(String cache, String loadedKey, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            cacheName = cache;
+            key = loadedKey;
+            success = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.cisco.workspaceintegrations.api.jfr;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import com.google.common.base.Utf8;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import com.cisco.workspaceintegrations.api.http.EndpointFamily;
+
+/**
+ * One HTTP request attempt, from sending the request until the response, or failure, is received
+ */
+@Name("com.cisco.workspaceintegrations.HttpRequest")
+@Label("HTTP Request")
+@Category({"Webex Workspace Integrations", "HTTP"})
+@StackTrace(false)
+public final class HttpRequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    private String method;
+
+    @Label("Endpoint Family")
+    private String endpointFamily;
+
+    @Label("Status Code")
+    @Description("0 if no response was received")
+    private int statusCode;
+
+    @Label("Response Size")
+    @Description("The response body size, or -1 if unknown")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * Ends the event and commits it, if enabled and above the threshold
+     *
+     * @param response The response, or null if none was received
+     */
+    public void complete(HttpRequest request, HttpResponse<?> response) {
+        end();
+        if (shouldCommit()) {
+            method = request.method();
+            endpointFamily = EndpointFamily.of(request.uri());
+            statusCode = response != null ? response.statusCode() : 0;
+            bytes = response != null ? size(response) : -1;
+            commit();
+        }
+    }
+
+    private static long size(HttpResponse<?> response) {
+        if (response.body() instanceof String body) {
+            return Utf8.encodedLength(body);
+        }
+        return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+    }
+}
@@ -0,0 +1,31 @@
+package com.cisco.workspaceintegrations.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The queue poller handing the messages of one poll to the message consumer
+ */
+@Name("com.cisco.workspaceintegrations.MessageDispatch")
+@Label("Message Dispatch")
+@Category({"Webex Workspace Integrations", "Queue"})
+@StackTrace(false)
+public final class MessageDispatchEvent extends jdk.jfr.Event {
+
+    @Label("Message Count")
+    private int messageCount;
+
+    @Label("Success")
+    private boolean success;
+
+    public void complete(int messages, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            messageCount = messages;
+            success = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.cisco.workspaceintegrations.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A long poll of the change notification queue. The duration is the time spent waiting for messages.
+ */
+@Name("com.cisco.workspaceintegrations.QueuePoll")
+@Label("Queue Poll")
+@Category({"Webex Workspace Integrations", "Queue"})
+@StackTrace(false)
+public final class QueuePollEvent extends jdk.jfr.Event {
+
+    @Label("Message Count")
+    @Description("The number of messages received, or -1 if the poll failed")
+    private int messageCount;
+
+    public void complete(int messages) {
+        end();
+        if (shouldCommit()) {
+            messageCount = messages;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.cisco.workspaceintegrations.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An access token fetch, using the refresh token
+ */
+@Name("com.cisco.workspaceintegrations.TokenRefresh")
+@Label("Access Token Refresh")
+@Category({"Webex Workspace Integrations", "OAuth"})
+public final class TokenRefreshEvent extends jdk.jfr.Event {
+
+    @Label("Success")
+    private boolean success;
+
+    public void complete(boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            success = succeeded;
+            commit();
+        }
+    }
+}
@@ -52,7 +52,7 @@ public class WorkspaceLocationsApi extends WebexDeveloperApi {
      * Required scope: <i>spark-admin:workspace_locations_read</i>
      */
     public ListResponse<WorkspaceLocation> getAllLocations() {
-        return this.getWebexHttp().get(
+        return this.getWebexHttp().getList(
             getBaseUrl(),
             new ListResponse.ListResponseReference<>(WorkspaceLocation.class)
         );
@@ -65,7 +65,7 @@ public class WorkspaceLocationsApi extends WebexDeveloperApi {
     public ListResponse<WorkspaceLocation> getLocations(WorkspaceLocationsFilter filter) {
         Map<String, Object> params = new HashMap<>();
         filter.addTo(params);
-        return this.getWebexHttp().get(
+        return this.getWebexHttp().getList(
             getBaseUrl(),
             new ListResponse.ListResponseReference<>(WorkspaceLocation.class),
             params
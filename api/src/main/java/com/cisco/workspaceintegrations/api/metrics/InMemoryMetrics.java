@@ -0,0 +1,67 @@
+package com.cisco.workspaceintegrations.api.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.cisco.workspaceintegrations.api.caching.CacheStatistics;
+import com.cisco.workspaceintegrations.api.core.LatencyHistogram;
+
+/**
+ * Keeps the metrics in memory, with a latency histogram per endpoint family and status code, to be read through
+ * {@link #snapshot()}. The histograms are fixed size and recording into them never allocates.
+ */
+public final class InMemoryMetrics implements Metrics {
+
+    private final ConcurrentHashMap<RequestKey, LatencyHistogram> requests = new ConcurrentHashMap<>();
+    private final LongAdder tokenRefreshes = new LongAdder();
+    private final LongAdder tokenRefreshFailures = new LongAdder();
+    private final LatencyHistogram pollDurations = new LatencyHistogram();
+    private final LongAdder polledMessages = new LongAdder();
+    private final AtomicLong maxMessagesPerPoll = new AtomicLong();
+    private final ConcurrentHashMap<String, CacheStatistics> caches = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordRequest(String endpointFamily, int statusCode, long elapsedNanos) {
+        requests.computeIfAbsent(new RequestKey(endpointFamily, statusCode), key -> new LatencyHistogram())
+                .record(elapsedNanos);
+    }
+
+    @Override
+    public void recordTokenRefresh(boolean success) {
+        (success ? tokenRefreshes : tokenRefreshFailures).increment();
+    }
+
+    @Override
+    public void recordPoll(long elapsedNanos, int messageCount) {
+        pollDurations.record(elapsedNanos);
+        polledMessages.add(messageCount);
+        maxMessagesPerPoll.accumulateAndGet(messageCount, Math::max);
+    }
+
+    @Override
+    public void recordCacheStatistics(CacheStatistics statistics) {
+        caches.put(statistics.name(), statistics);
+    }
+
+    public MetricsSnapshot snapshot() {
+        List<MetricsSnapshot.RequestMetrics> requestMetrics = new ArrayList<>();
+        requests.forEach((key, histogram) -> requestMetrics.add(new MetricsSnapshot.RequestMetrics(
+            key.endpointFamily(), key.statusCode(), MetricsSnapshot.LatencySummary.of(histogram))));
+        requestMetrics.sort(Comparator.comparing(MetricsSnapshot.RequestMetrics::endpointFamily)
+                                      .thenComparingInt(MetricsSnapshot.RequestMetrics::statusCode));
+        return new MetricsSnapshot(requestMetrics,
+                                   tokenRefreshes.sum(),
+                                   tokenRefreshFailures.sum(),
+                                   MetricsSnapshot.LatencySummary.of(pollDurations),
+                                   polledMessages.sum(),
+                                   maxMessagesPerPoll.get(),
+                                   caches);
+    }
+
+    private record RequestKey(String endpointFamily, int statusCode) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.cisco.workspaceintegrations.api.metrics;
+
+import com.cisco.workspaceintegrations.api.caching.CacheOptions;
+import com.cisco.workspaceintegrations.api.caching.CacheStatistics;
+import com.cisco.workspaceintegrations.api.http.EndpointFamily;
+
+/**
+ * Instrumentation callbacks of the SDK, to bridge into whatever metrics library is in use.
+ * All methods default to doing nothing, so implementations only override what they care about.
+ * They are called on request threads and must be cheap and never throw.
+ * <p>
+ * Cache statistics are pushed through the stats listener of the cache, e.g.
+ * {@code CacheOptions.builder().statsListener(metrics::recordCacheStatistics, Duration.ofMinutes(1))}.
+ *
+ * @see InMemoryMetrics
+ * @see CacheOptions.Builder#statsListener
+ */
+public interface Metrics {
+
+    static Metrics noop() {
+        return NoopMetrics.INSTANCE;
+    }
+
+    /**
+     * Called for every request attempt sent, including retries
+     *
+     * @param endpointFamily The {@link EndpointFamily} of the request URI
+     * @param statusCode     The response status code, or 0 if no response was received
+     * @param elapsedNanos   The time from sending the request until the response headers were received
+     */
+    default void recordRequest(String endpointFamily, int statusCode, long elapsedNanos) {
+    }
+
+    /**
+     * Called for every access token fetch
+     */
+    default void recordTokenRefresh(boolean success) {
+    }
+
+    /**
+     * Called for every successful queue poll
+     *
+     * @param elapsedNanos The duration of the long poll request
+     * @param messageCount The number of messages received
+     */
+    default void recordPoll(long elapsedNanos, int messageCount) {
+    }
+
+    default void recordCacheStatistics(CacheStatistics statistics) {
+    }
+
+    enum NoopMetrics implements Metrics {
+        INSTANCE
+    }
+}
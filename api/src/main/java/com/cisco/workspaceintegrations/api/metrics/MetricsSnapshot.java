@@ -0,0 +1,73 @@
+package com.cisco.workspaceintegrations.api.metrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.cisco.workspaceintegrations.api.caching.CacheStatistics;
+import com.cisco.workspaceintegrations.api.core.LatencyHistogram;
+
+/**
+ * The counters of an {@link InMemoryMetrics} at a point in time
+ *
+ * @param requests             Per endpoint family and status code, sorted
+ * @param tokenRefreshes       Successful access token fetches
+ * @param tokenRefreshFailures Failed access token fetches
+ * @param pollDuration         Duration of the queue long poll requests
+ * @param polledMessages       Messages received from the queue
+ * @param maxMessagesPerPoll   The most messages received in one poll
+ * @param caches               The latest statistics per cache name
+ */
+public record MetricsSnapshot(List<RequestMetrics> requests,
+                              long tokenRefreshes,
+                              long tokenRefreshFailures,
+                              LatencySummary pollDuration,
+                              long polledMessages,
+                              long maxMessagesPerPoll,
+                              Map<String, CacheStatistics> caches) {
+
+    public MetricsSnapshot {
+        requests = List.copyOf(requests);
+        caches = Map.copyOf(caches);
+    }
+
+    public long requestCount(String endpointFamily) {
+        return requests.stream()
+                       .filter(request -> request.endpointFamily().equals(endpointFamily))
+                       .mapToLong(request -> request.latency().count())
+                       .sum();
+    }
+
+    public long errorCount(String endpointFamily) {
+        return requests.stream()
+                       .filter(request -> request.endpointFamily().equals(endpointFamily) && request.isError())
+                       .mapToLong(request -> request.latency().count())
+                       .sum();
+    }
+
+    public double messagesPerPoll() {
+        return pollDuration.count() == 0 ? 0 : (double) polledMessages / pollDuration.count();
+    }
+
+    /**
+     * @param statusCode The response status code, or 0 for requests that got no response
+     */
+    public record RequestMetrics(String endpointFamily, int statusCode, LatencySummary latency) {
+
+        public boolean isError() {
+            return statusCode == 0 || statusCode >= 400;
+        }
+    }
+
+    public record LatencySummary(long count, Duration mean, Duration p50, Duration p90, Duration p99, Duration max) {
+
+        static LatencySummary of(LatencyHistogram histogram) {
+            return new LatencySummary(histogram.getCount(),
+                                      histogram.getMean(),
+                                      histogram.getPercentile(50),
+                                      histogram.getPercentile(90),
+                                      histogram.getPercentile(99),
+                                      histogram.getMax());
+        }
+    }
+}
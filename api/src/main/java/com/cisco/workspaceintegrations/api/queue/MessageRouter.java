@@ -0,0 +1,218 @@
+package com.cisco.workspaceintegrations.api.queue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cisco.workspaceintegrations.common.json.Json;
+import com.cisco.workspaceintegrations.common.messages.Message;
+import com.cisco.workspaceintegrations.common.messages.WebhookEventsMessage;
+import com.cisco.workspaceintegrations.common.messages.WebhookEventsMessage.Event;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage;
+import com.cisco.workspaceintegrations.common.xapi.Key;
+import com.cisco.workspaceintegrations.common.xapi.Key.Segment;
+import com.cisco.workspaceintegrations.common.xapi.KeyIndex;
+import com.cisco.workspaceintegrations.common.xapi.StatusConverter;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Routes status changes and events to handlers registered on (possibly wildcard) keys, e.g.:
+ * <pre>
+ * MessageRouter router = new MessageRouter()
+ *     .onStatus(ROOM_ANALYTICS_PEOPLE_COUNT, Integer.class, (message, key, count) -> ...)
+ *     .onEvent(CALL_DISCONNECT, CallDisconnect.class, (message, event, disconnect) -> ...);
+ * integration.getQueuePoller(router).start();
+ * </pre>
+ * Subscriptions are compiled into a {@link KeyIndex}, so the cost of routing a message does not grow with the number
+ * of handlers. Each updated status value or event is converted once per target type, whatever the number of handlers.
+ * A status subscription either matches updated leaf keys, e.g.
+ * {@code Peripherals.ConnectedDevice[*].RoomAnalytics.AirQuality.Index}, and gets each value, or matches a parent of
+ * updated keys, e.g. {@code RoomAnalytics}, and gets the updated part of the object once per message, built with
+ * {@link StatusConverter#getObject(Key, Class, Map)}. Keys ending with a segment wildcard only match leaf keys.
+ */
+public final class MessageRouter implements Consumer<List<Message>> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MessageRouter.class);
+
+    private final List<Subscription<?, StatusHandler<?>>> statusSubscriptions = new ArrayList<>();
+    private final List<Subscription<?, EventHandler<?>>> eventSubscriptions = new ArrayList<>();
+    private volatile StatusIndex statusIndex = new StatusIndex(KeyIndex.<Subscription<?, StatusHandler<?>>>builder().build(), new BitSet());
+    private volatile KeyIndex<Subscription<?, EventHandler<?>>> eventIndex = KeyIndex.<Subscription<?, EventHandler<?>>>builder().build();
+
+    /**
+     * Calls the handler for every updated status value enclosed by the key, converted to the value type
+     */
+    public synchronized <T> MessageRouter onStatus(Key key, Class<T> valueType, StatusHandler<? super T> handler) {
+        statusSubscriptions.add(new Subscription<>(checkNotNull(key), checkNotNull(valueType), checkNotNull(handler)));
+        BitSet objectDepths = new BitSet();
+        statusSubscriptions.stream()
+                           .filter(Subscription::matchesObjects)
+                           .forEach(subscription -> objectDepths.set(subscription.key().segments().size()));
+        statusIndex = new StatusIndex(compile(statusSubscriptions), objectDepths);
+        return this;
+    }
+
+    /**
+     * Calls the handler for every event enclosed by the key, converted to the value type
+     */
+    public synchronized <T> MessageRouter onEvent(Key key, Class<T> valueType, EventHandler<? super T> handler) {
+        eventSubscriptions.add(new Subscription<>(checkNotNull(key), checkNotNull(valueType), checkNotNull(handler)));
+        eventIndex = compile(eventSubscriptions);
+        return this;
+    }
+
+    @Override
+    public void accept(List<Message> messages) {
+        for (Message message : messages) {
+            if (message instanceof WebhookStatusMessage statusMessage) {
+                route(statusMessage);
+            } else if (message instanceof WebhookEventsMessage eventsMessage) {
+                route(eventsMessage);
+            }
+        }
+    }
+
+    private void route(WebhookStatusMessage message) {
+        StatusIndex index = statusIndex;
+        if (index.keys().isEmpty()) {
+            return;
+        }
+        Map<Key, JsonNode> updated = message.changes().updated();
+        Map<Key, List<Subscription<?, StatusHandler<?>>>> objects = new LinkedHashMap<>();
+        updated.forEach((key, value) -> {
+            List<Segment> segments = key.segments();
+            // The parents of the key at the depths where object subscriptions exist, the bits are in ascending order
+            index.objectDepths().stream()
+                 .filter(depth -> depth > 0)
+                 .takeWhile(depth -> depth < segments.size())
+                 .forEach(depth -> objects.computeIfAbsent(Key.key(segments.subList(0, depth)), index::objectMatches));
+            List<Subscription<?, StatusHandler<?>>> matches = index.keys().match(key);
+            if (!matches.isEmpty()) {
+                dispatch(message, key, matches, new Conversions(value, type -> Json.objectMapper().convertValue(value, type)));
+            }
+        });
+        objects.forEach((parent, matches) -> dispatch(message, parent, matches,
+            new Conversions(parent, type -> StatusConverter.getObject(parent, type, updated).orElse(null))));
+    }
+
+    private static void dispatch(WebhookStatusMessage message, Key key, List<Subscription<?, StatusHandler<?>>> matches, Conversions conversions) {
+        for (Subscription<?, StatusHandler<?>> subscription : matches) {
+            conversions.get(subscription).ifPresent(converted -> dispatch(subscription, () -> {
+                @SuppressWarnings("unchecked")
+                StatusHandler<Object> handler = (StatusHandler<Object>) subscription.handler();
+                handler.onStatus(message, key, converted);
+            }));
+        }
+    }
+
+    private void route(WebhookEventsMessage message) {
+        KeyIndex<Subscription<?, EventHandler<?>>> index = eventIndex;
+        if (index.isEmpty()) {
+            return;
+        }
+        for (Event event : message.events()) {
+            List<Subscription<?, EventHandler<?>>> matches = index.match(event.key());
+            if (matches.isEmpty()) {
+                continue;
+            }
+            JsonNode value = event.valueAsJson();
+            Conversions conversions = new Conversions(value, type -> Json.objectMapper().convertValue(value, type));
+            for (Subscription<?, EventHandler<?>> subscription : matches) {
+                conversions.get(subscription).ifPresent(converted -> dispatch(subscription, () -> {
+                    @SuppressWarnings("unchecked")
+                    EventHandler<Object> handler = (EventHandler<Object>) subscription.handler();
+                    handler.onEvent(message, event, converted);
+                }));
+            }
+        }
+    }
+
+    private static void dispatch(Subscription<?, ?> subscription, Runnable handlerCall) {
+        try {
+            handlerCall.run();
+        } catch (Exception ex) {
+            LOG.error("Unexpected error in handler subscribed to {}", subscription.key(), ex);
+        }
+    }
+
+    private static <S extends Subscription<?, ?>> KeyIndex<S> compile(List<S> subscriptions) {
+        KeyIndex.Builder<S> builder = KeyIndex.builder();
+        subscriptions.forEach(subscription -> builder.add(subscription.key(), subscription));
+        return builder.build();
+    }
+
+    @FunctionalInterface
+    public interface StatusHandler<T> {
+        /**
+         * @param message The status message holding the change
+         * @param key     The absolute key of the updated status, or of the updated object
+         * @param value   The updated value, or the updated part of the object
+         */
+        void onStatus(WebhookStatusMessage message, Key key, T value);
+    }
+
+    @FunctionalInterface
+    public interface EventHandler<T> {
+        /**
+         * @param message The events message holding the event
+         * @param event   The event
+         * @param value   The event value
+         */
+        void onEvent(WebhookEventsMessage message, Event event, T value);
+    }
+
+    private record Subscription<T, H>(Key key, Class<T> valueType, H handler) {
+        boolean matchesObjects() {
+            return !key.lastSegment().isSegmentWildcard();
+        }
+    }
+
+    private record StatusIndex(KeyIndex<Subscription<?, StatusHandler<?>>> keys, BitSet objectDepths) {
+
+        /**
+         * The subscriptions to the object at the given key, rather than to a single value below it
+         */
+        List<Subscription<?, StatusHandler<?>>> objectMatches(Key parent) {
+            return keys.match(parent).stream().filter(Subscription::matchesObjects).toList();
+        }
+    }
+
+    /**
+     * Converts a json value, or an object built from several values, once per target type
+     */
+    private static final class Conversions {
+        private final Object value;
+        private final Function<Class<?>, Object> converter;
+        private Map<Class<?>, Optional<Object>> converted;
+
+        private Conversions(Object value, Function<Class<?>, Object> converter) {
+            this.value = value;
+            this.converter = converter;
+        }
+
+        Optional<Object> get(Subscription<?, ?> subscription) {
+            if (converted == null) {
+                converted = new HashMap<>(4);
+            }
+            return converted.computeIfAbsent(subscription.valueType(), type -> {
+                try {
+                    return Optional.ofNullable(converter.apply(type));
+                } catch (IllegalArgumentException ex) {
+                    LOG.warn("Unable to convert {} to {} for subscription to {}", value, type.getSimpleName(), subscription.key(), ex);
+                    return Optional.empty();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.cisco.workspaceintegrations.api.queue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cisco.workspaceintegrations.common.messages.Message;
+import com.cisco.workspaceintegrations.common.messages.WebhookDeviceMessage;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Decouples queue polling from message processing. Messages are partitioned on device id and each partition is
+ * processed by its own worker, so messages for one device are handled in order while different devices are handled
+ * in parallel. Partitions are bounded: when a worker falls behind, {@link #accept(List)} blocks, which in turn slows
+ * down the {@link QueuePoller}.
+ * <p>
+ * Messages not tied to a device (e.g. actions and health checks) all go to the same partition.
+ * The delegate consumer is called with batches of messages from a single partition and must be thread safe.
+ */
+public final class PartitionedMessageDispatcher implements Consumer<List<Message>>, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PartitionedMessageDispatcher.class);
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Consumer<List<Message>> delegate;
+    private final List<BlockingQueue<Message>> partitions;
+    private final List<Thread> workers;
+    private final int maxBatchSize;
+    private final Duration shutdownTimeout;
+    private volatile boolean running = true;
+
+    private PartitionedMessageDispatcher(Builder builder) {
+        this.delegate = builder.delegate;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.shutdownTimeout = builder.shutdownTimeout;
+        this.partitions = new ArrayList<>(builder.partitions);
+        this.workers = new ArrayList<>(builder.partitions);
+        for (int i = 0; i < builder.partitions; i++) {
+            BlockingQueue<Message> queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+            Thread worker = builder.threadFactory.newThread(() -> workerLoop(queue));
+            partitions.add(queue);
+            workers.add(worker);
+        }
+        workers.forEach(Thread::start);
+    }
+
+    public static Builder builder(Consumer<List<Message>> delegate) {
+        return new Builder(delegate);
+    }
+
+    /**
+     * Hands the messages over to the partition workers, blocking while a target partition is full. Once the
+     * dispatcher is closed the messages are dropped, also those of a call blocked on a full partition.
+     */
+    @Override
+    public void accept(List<Message> messages) {
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                Message message = messages.get(i);
+                BlockingQueue<Message> partition = partitions.get(partitionOf(message));
+                boolean queued = false;
+                while (running && !queued) {
+                    queued = partition.offer(message, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (!queued) {
+                    LOG.warn("Message dispatcher closed, dropping {} message(s)", messages.size() - i);
+                    return;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while dispatching messages", ex);
+        }
+    }
+
+    /**
+     * The number of messages waiting to be processed across all partitions.
+     */
+    public int getBacklog() {
+        return partitions.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    /**
+     * Stops accepting messages and lets the workers drain their partitions, waiting at most the shutdown timeout
+     * before interrupting them. Messages passed to {@link #accept(List)} from now on are dropped.
+     */
+    @Override
+    public void close() {
+        running = false;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        for (Thread worker : workers) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0) {
+                    TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.stream().filter(Thread::isAlive).forEach(Thread::interrupt);
+        int dropped = getBacklog();
+        if (dropped > 0) {
+            LOG.warn("Message dispatcher closed with {} unprocessed message(s)", dropped);
+        }
+    }
+
+    private int partitionOf(Message message) {
+        if (message instanceof WebhookDeviceMessage) {
+            return Math.floorMod(((WebhookDeviceMessage) message).deviceId().hashCode(), partitions.size());
+        }
+        return 0;
+    }
+
+    private void workerLoop(BlockingQueue<Message> queue) {
+        List<Message> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Message first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                delegate.accept(List.copyOf(batch));
+            } catch (InterruptedException ex) {
+                LOG.info("Interrupt detected, stopping message dispatcher worker");
+                break;
+            } catch (Exception ex) {
+                LOG.error("Unexpected error in message consumer", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final Consumer<List<Message>> delegate;
+        private int partitions = Runtime.getRuntime().availableProcessors();
+        private int queueCapacity = 1000;
+        private int maxBatchSize = 100;
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+        private ThreadFactory threadFactory = defaultThreadFactory();
+
+        private Builder(Consumer<List<Message>> delegate) {
+            this.delegate = checkNotNull(delegate);
+        }
+
+        /**
+         * The number of partitions, and hence workers. Defaults to the number of available processors.
+         */
+        public Builder partitions(int val) {
+            checkArgument(val > 0, "partitions must be positive");
+            partitions = val;
+            return this;
+        }
+
+        /**
+         * Max number of messages waiting in each partition before polling is held back. Defaults to 1000.
+         */
+        public Builder queueCapacity(int val) {
+            checkArgument(val > 0, "queueCapacity must be positive");
+            queueCapacity = val;
+            return this;
+        }
+
+        /**
+         * Max number of messages handed to the delegate in one call. Defaults to 100.
+         */
+        public Builder maxBatchSize(int val) {
+            checkArgument(val > 0, "maxBatchSize must be positive");
+            maxBatchSize = val;
+            return this;
+        }
+
+        public Builder shutdownTimeout(Duration val) {
+            shutdownTimeout = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Creates the partition workers, e.g. {@code ExecutorFactory.virtualThreads().threadFactory("dispatcher")}.
+         * Defaults to daemon platform threads.
+         */
+        public Builder threadFactory(ThreadFactory val) {
+            threadFactory = checkNotNull(val);
+            return this;
+        }
+
+        public PartitionedMessageDispatcher build() {
+            return new PartitionedMessageDispatcher(this);
+        }
+
+        private static ThreadFactory defaultThreadFactory() {
+            AtomicInteger count = new AtomicInteger();
+            return runnable -> {
+                Thread thread = new Thread(runnable, "message-dispatcher-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+}
@@ -2,15 +2,20 @@ package com.cisco.workspaceintegrations.api.queue;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.cisco.workspaceintegrations.api.core.ExecutorFactory;
 import com.cisco.workspaceintegrations.api.core.ProvisioningChangedListener;
 import com.cisco.workspaceintegrations.api.core.WebexDeveloperApi;
 import com.cisco.workspaceintegrations.api.core.WebexHttp;
+import com.cisco.workspaceintegrations.api.jfr.MessageDispatchEvent;
+import com.cisco.workspaceintegrations.api.jfr.QueuePollEvent;
+import com.cisco.workspaceintegrations.api.tracing.Span;
 import com.cisco.workspaceintegrations.common.actions.Action;
 import com.cisco.workspaceintegrations.common.actions.JwtDecoder;
 import com.cisco.workspaceintegrations.common.actions.UpdateApproved;
@@ -21,7 +26,9 @@ import static java.lang.Thread.sleep;
 
 /**
  * Implements long polling of the devices change notification queue.
- * Messages received will be passed on to the messageConsumer.
+ * Messages received will be passed on to the messageConsumer. Polling waits for the consumer, so use a
+ * {@link PartitionedMessageDispatcher} to process messages in parallel. A consumer that is {@link AutoCloseable}
+ * is closed when the poller is stopped.
  */
 public class QueuePoller extends WebexDeveloperApi {
     private static final Logger LOG = LoggerFactory.getLogger(QueuePoller.class);
@@ -29,6 +36,7 @@ public class QueuePoller extends WebexDeveloperApi {
     private final Consumer<List<Message>> messageConsumer;
     private final ProvisioningChangedListener provisioningChangedListener;
     private final JwtDecoder jwtDecoder;
+    private final ThreadFactory threadFactory;
     private Thread workerThread;
 
     public QueuePoller(WebexHttp webexHttp,
@@ -36,16 +44,28 @@ public class QueuePoller extends WebexDeveloperApi {
                        Consumer<List<Message>> messageConsumer,
                        ProvisioningChangedListener provisioningChangedListener,
                        JwtDecoder jwtDecoder) {
+        this(webexHttp, queueUrl, messageConsumer, provisioningChangedListener, jwtDecoder, ExecutorFactory.platformThreads());
+    }
+
+    public QueuePoller(WebexHttp webexHttp,
+                       URI queueUrl,
+                       Consumer<List<Message>> messageConsumer,
+                       ProvisioningChangedListener provisioningChangedListener,
+                       JwtDecoder jwtDecoder,
+                       ExecutorFactory executorFactory) {
         super(webexHttp, queueUrl);
         this.messageConsumer = messageConsumer;
         this.provisioningChangedListener = provisioningChangedListener;
         this.jwtDecoder = jwtDecoder;
+        this.threadFactory = executorFactory.threadFactory("queue-poller");
     }
 
     public void start() {
         LOG.info("Starting integration queue poller (change notification long polling)");
         isRunning.set(true);
-        workerThread = new Thread(this::pollerLoop, "queue-poller");
+        workerThread = threadFactory.newThread(this::pollerLoop);
+        // There is only one poller thread, so it keeps its plain name rather than a numbered one
+        workerThread.setName("queue-poller");
         workerThread.setUncaughtExceptionHandler((th, ex) -> LOG.error("Unhandled queue poller error", ex));
         workerThread.start();
     }
@@ -56,6 +76,13 @@ public class QueuePoller extends WebexDeveloperApi {
         if (workerThread != null) {
             workerThread.interrupt();
         }
+        if (messageConsumer instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) messageConsumer).close();
+            } catch (Exception ex) {
+                LOG.error("Unexpected error closing the message consumer", ex);
+            }
+        }
     }
 
     public boolean isRunning() {
@@ -65,8 +92,7 @@ public class QueuePoller extends WebexDeveloperApi {
     private void pollerLoop() {
         while (isRunning.get()) {
             try {
-                QueuePollResponse response = this.getWebexHttp().get(getBaseUrl(), QueuePollResponse.class);
-                List<Message> messages = response.getMessages();
+                List<Message> messages = poll();
                 LOG.debug("Got poll response with {} message(s)", messages.size());
                 consume(messages);
             } catch (Exception ex) {
@@ -82,11 +108,40 @@ public class QueuePoller extends WebexDeveloperApi {
         LOG.info("Queue poller loop ended");
     }
 
+    private List<Message> poll() {
+        Span span = getWebexHttp().getTracer().startSpan("webex.queue.poll");
+        QueuePollEvent event = new QueuePollEvent();
+        event.begin();
+        try (Span.Scope scope = span.makeCurrent()) {
+            long start = System.nanoTime();
+            QueuePollResponse response = this.getWebexHttp().longPoll(getBaseUrl(), QueuePollResponse.class);
+            List<Message> messages = response.getMessages();
+            getWebexHttp().getMetrics().recordPoll(System.nanoTime() - start, messages.size());
+            event.complete(messages.size());
+            span.setAttribute(Span.MESSAGE_COUNT, messages.size());
+            return messages;
+        } catch (RuntimeException ex) {
+            event.complete(-1);
+            span.recordException(ex);
+            throw ex;
+        } finally {
+            span.end();
+        }
+    }
+
     private void consume(List<Message> messages) {
-        try {
+        Span span = getWebexHttp().getTracer().startSpan("webex.queue.consume").setAttribute(Span.MESSAGE_COUNT, messages.size());
+        MessageDispatchEvent event = new MessageDispatchEvent();
+        event.begin();
+        try (Span.Scope scope = span.makeCurrent()) {
             messageConsumer.accept(messages);
+            event.complete(messages.size(), true);
         } catch (Exception ex) {
+            event.complete(messages.size(), false);
+            span.recordException(ex);
             LOG.error("Unexpected error in message consumer", ex);
+        } finally {
+            span.end();
         }
         try {
             handleUpdateApprovedMessage(messages);
@@ -99,7 +154,7 @@ public class QueuePoller extends WebexDeveloperApi {
         messages.stream().filter(m -> m instanceof ActionMessage)
                 .reduce((first, second) -> second)
                 .ifPresent(actionMessage -> {
-                    Action action = jwtDecoder.decodeAction(((ActionMessage) actionMessage).getJwt());
+                    Action action = ((ActionMessage) actionMessage).decodeAction(jwtDecoder);
                     if (action instanceof UpdateApproved) {
                         provisioningChangedListener.updateApproved((UpdateApproved) action);
                     }
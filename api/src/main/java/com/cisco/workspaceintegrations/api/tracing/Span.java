@@ -0,0 +1,64 @@
+package com.cisco.workspaceintegrations.api.tracing;
+
+/**
+ * A span started by a {@link Tracer}. The SDK ends every span it starts, on failure after recording the exception.
+ */
+public interface Span {
+
+    String HTTP_METHOD = "http.request.method";
+    String HTTP_STATUS_CODE = "http.response.status_code";
+    String URL = "url.full";
+    String ENDPOINT_FAMILY = "webex.endpoint_family";
+    String TRACKING_ID = "webex.tracking_id";
+    String MESSAGE_COUNT = "webex.queue.message_count";
+
+    static Span noop() {
+        return NoopSpan.INSTANCE;
+    }
+
+    Span setAttribute(String key, String value);
+
+    Span setAttribute(String key, long value);
+
+    void recordException(Throwable error);
+
+    /**
+     * Makes this span the current one until the returned scope is closed, on the same thread. Does nothing by default.
+     */
+    default Scope makeCurrent() {
+        return Scope.NOOP;
+    }
+
+    void end();
+
+    @FunctionalInterface
+    interface Scope extends AutoCloseable {
+
+        Scope NOOP = () -> { };
+
+        @Override
+        void close();
+    }
+
+    enum NoopSpan implements Span {
+        INSTANCE;
+
+        @Override
+        public Span setAttribute(String key, String value) {
+            return this;
+        }
+
+        @Override
+        public Span setAttribute(String key, long value) {
+            return this;
+        }
+
+        @Override
+        public void recordException(Throwable error) {
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+}
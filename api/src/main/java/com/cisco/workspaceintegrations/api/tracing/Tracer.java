@@ -0,0 +1,37 @@
+package com.cisco.workspaceintegrations.api.tracing;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Tracing callbacks of the SDK, to bridge into OpenTelemetry or any other tracing library without depending on it.
+ * Spans are started around HTTP requests, access token fetches, queue poll cycles and message consumer invocations.
+ * The blocking ones are made current for their duration, so HTTP requests sent from a message consumer, say xAPI
+ * commands, are children of the consumer span when the implementation tracks a current context.
+ */
+public interface Tracer {
+
+    static Tracer noop() {
+        return NoopTracer.INSTANCE;
+    }
+
+    /**
+     * @param name The span name, like <i>GET devices</i> or <i>webex.queue.poll</i>
+     */
+    Span startSpan(String name);
+
+    /**
+     * Adds the outbound headers carrying the trace context of the given HTTP span, e.g. <i>traceparent</i>, or a
+     * <i>TrackingID</i> of your own to correlate with the Webex logs. Adds nothing by default.
+     */
+    default void inject(Span span, BiConsumer<String, String> headers) {
+    }
+
+    enum NoopTracer implements Tracer {
+        INSTANCE;
+
+        @Override
+        public Span startSpan(String name) {
+            return Span.noop();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.cisco.workspaceintegrations.api.workspaces;
 
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
+import com.cisco.workspaceintegrations.api.caching.CacheOptions;
 import com.cisco.workspaceintegrations.api.caching.InMemoryCache;
 import com.cisco.workspaceintegrations.common.workspaces.Workspace;
 
@@ -13,14 +15,36 @@ public class WorkspaceCache extends InMemoryCache<Workspace> {
     private final WorkspacesApi api;
 
     public WorkspaceCache(WorkspacesApi api) {
-        this.api = api;
+        this(api, CacheOptions.defaults());
     }
 
     public WorkspaceCache(WorkspacesApi api, Duration ttl, int maxSize) {
-        super(ttl, maxSize);
+        this(api, CacheOptions.builder().ttl(ttl).maxSize(maxSize).build());
+    }
+
+    /**
+     * Use {@link CacheOptions#builder()} to e.g. enable refresh ahead, so that expiring entries are reloaded in the
+     * background rather than on the calling thread.
+     */
+    public WorkspaceCache(WorkspacesApi api, CacheOptions options) {
+        super(Workspace.class, options);
         this.api = api;
     }
 
+    /**
+     * Populates the cache from the list API, 1000 workspaces per request, instead of fetching them one by one.
+     *
+     * @return The number of workspaces cached
+     */
+    public int warmUp(WorkspacesFilter filter) {
+        return api.forEachWorkspace(filter, workspace -> put(workspace.getId(), workspace));
+    }
+
+    @Override
+    protected CompletableFuture<Workspace> loadAsync(String id) {
+        return api.getWorkspaceAsync(id);
+    }
+
     @Override
     protected Workspace load(String id) {
         return api.getWorkspace(id);
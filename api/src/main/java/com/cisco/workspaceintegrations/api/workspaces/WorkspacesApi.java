@@ -2,10 +2,15 @@ package com.cisco.workspaceintegrations.api.workspaces;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableMap;
 
 import com.cisco.workspaceintegrations.api.core.ListResponse;
+import com.cisco.workspaceintegrations.api.core.ItemsPage;
+import com.cisco.workspaceintegrations.api.core.PagedIterator;
 import com.cisco.workspaceintegrations.api.core.WebexDeveloperApi;
 import com.cisco.workspaceintegrations.api.core.WebexHttp;
 import com.cisco.workspaceintegrations.common.workspaces.CreateWorkspace;
@@ -22,6 +27,8 @@ import com.cisco.workspaceintegrations.common.workspaces.Workspace;
  */
 public class WorkspacesApi extends WebexDeveloperApi {
 
+    private static final int STREAM_PAGE_SIZE = 1000;
+
     public WorkspacesApi(WebexHttp webexHttp) {
         super(webexHttp, "workspaces");
     }
@@ -50,6 +57,13 @@ public class WorkspacesApi extends WebexDeveloperApi {
         return this.getWebexHttp().get(urlFor(workspaceId), Workspace.class);
     }
 
+    /**
+     * Non-blocking variant of {@link #getWorkspace(String)}
+     */
+    public CompletableFuture<Workspace> getWorkspaceAsync(String workspaceId) {
+        return this.getWebexHttp().getAsync(urlFor(workspaceId), Workspace.class);
+    }
+
     /**
      * Read workspaces: <a href="https://developer.webex.com/docs/api/v1/workspaces/get-workspace-details">API docs</a>
      * Required scope: <i>spark-admin:workspaces_read</i>
@@ -58,7 +72,7 @@ public class WorkspacesApi extends WebexDeveloperApi {
      * @param max   The max number of workspaces per page (upper limit is 1000)
      */
     public ListResponse<Workspace> getWorkspaces(int start, int max) {
-        return this.getWebexHttp().get(
+        return this.getWebexHttp().getList(
             getBaseUrl(),
             new ListResponse.ListResponseReference<>(Workspace.class),
             ImmutableMap.of("start", start, "max", max)
@@ -74,18 +88,61 @@ public class WorkspacesApi extends WebexDeveloperApi {
      * @param filter To filter workspaces by type, displayName, calling, calendar etc.
      */
     public ListResponse<Workspace> getWorkspaces(int start, int max, WorkspacesFilter filter) {
-        Map<String, Object> params = new HashMap<>();
-        params.put("start", start);
-        params.put("max", max);
-        filter.addTo(params);
-        return this.getWebexHttp().get(
+        return this.getWebexHttp().getList(
             getBaseUrl(),
             new ListResponse.ListResponseReference<>(Workspace.class),
-            params
+            pageParams(start, max, filter)
+        );
+    }
+
+    /**
+     * Non-blocking variant of {@link #getWorkspaces(int, int, WorkspacesFilter)}
+     */
+    public CompletableFuture<ListResponse<Workspace>> getWorkspacesAsync(int start, int max, WorkspacesFilter filter) {
+        return this.getWebexHttp().getListAsync(
+            getBaseUrl(),
+            new ListResponse.ListResponseReference<>(Workspace.class),
+            pageParams(start, max, filter)
+        );
+    }
+
+    /**
+     * Lazily streams all workspaces matching the filter, fetching pages of 1000 workspaces on demand and prefetching
+     * the next page in the background. Close the stream when not consuming it to the end.
+     * Required scope: <i>spark-admin:workspaces_read</i>
+     */
+    public Stream<Workspace> streamWorkspaces(WorkspacesFilter filter) {
+        return PagedIterator.stream(
+            STREAM_PAGE_SIZE,
+            start -> getWorkspacesAsync(start, STREAM_PAGE_SIZE, filter),
+            nextPage -> this.getWebexHttp().getListAsync(nextPage, new ListResponse.ListResponseReference<>(Workspace.class))
+        );
+    }
+
+    /**
+     * Visits all workspaces matching the filter page by page. Workspaces are parsed off the response stream one at a
+     * time, so memory use stays flat regardless of page size.
+     * Required scope: <i>spark-admin:workspaces_read</i>
+     *
+     * @return The number of workspaces visited
+     */
+    public int forEachWorkspace(WorkspacesFilter filter, Consumer<? super Workspace> consumer) {
+        return ItemsPage.readAll(
+            STREAM_PAGE_SIZE,
+            start -> this.getWebexHttp().getItems(getBaseUrl(), Workspace.class, pageParams(start, STREAM_PAGE_SIZE, filter), consumer),
+            nextPage -> this.getWebexHttp().getItems(nextPage, Workspace.class, consumer)
         );
     }
 
     public void deleteWorkspace(String workspaceId) {
         this.getWebexHttp().delete(urlFor(workspaceId));
     }
+
+    private static Map<String, Object> pageParams(int start, int max, WorkspacesFilter filter) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("start", start);
+        params.put("max", max);
+        filter.addTo(params);
+        return params;
+    }
 }
@@ -0,0 +1,213 @@
+package com.cisco.workspaceintegrations.api.xapi;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cisco.workspaceintegrations.api.core.LatencyHistogram;
+import com.cisco.workspaceintegrations.api.devices.DevicesApi;
+import com.cisco.workspaceintegrations.api.devices.DevicesFilter;
+import com.cisco.workspaceintegrations.api.http.Http;
+import com.cisco.workspaceintegrations.common.devices.Device;
+import com.cisco.workspaceintegrations.common.xapi.CommandRequest;
+import com.cisco.workspaceintegrations.common.xapi.CommandResponse;
+import com.cisco.workspaceintegrations.common.xapi.Key;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Executes the same xAPI command on a large number of devices, say for org wide signage or alert pushes.
+ * <p>
+ * The commands are sent with the non-blocking {@link XAPI#executeCommandAsync(Key, CommandRequest)}, and at most
+ * <i>concurrency</i> commands are in flight at any time. Each device result is reported to the listener as it
+ * completes, and a summary is returned when all devices are done.
+ */
+public final class BulkCommandExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkCommandExecutor.class);
+
+    private final XAPI xapi;
+    private final DevicesApi devicesApi;
+    private final int concurrency;
+    private final Duration timeout;
+
+    private BulkCommandExecutor(Builder builder) {
+        this.xapi = builder.xapi;
+        this.devicesApi = builder.devicesApi;
+        this.concurrency = builder.concurrency;
+        this.timeout = builder.timeout;
+    }
+
+    public static Builder builder(XAPI xapi) {
+        return new Builder(xapi);
+    }
+
+    /**
+     * Execute the command on the given devices. Blocks until all devices have completed.
+     */
+    public BulkCommandSummary execute(Key command,
+                                      Map<String, JsonNode> arguments,
+                                      Collection<String> deviceIds,
+                                      BulkCommandListener listener) throws InterruptedException {
+        Execution execution = new Execution(command, arguments, listener);
+        execution.total = deviceIds.size();
+        for (String deviceId : deviceIds) {
+            execution.submit(deviceId);
+        }
+        return execution.awaitCompletion();
+    }
+
+    /**
+     * Execute the command on all devices matching the filter. The devices are resolved page by page, and commands
+     * are sent while the remaining pages are fetched. Blocks until all devices have completed.
+     */
+    public BulkCommandSummary execute(Key command,
+                                      Map<String, JsonNode> arguments,
+                                      DevicesFilter filter,
+                                      BulkCommandListener listener) throws InterruptedException {
+        checkState(devicesApi != null, "A DevicesApi is required to execute commands on devices matching a filter");
+        Execution execution = new Execution(command, arguments, listener);
+        int submitted = 0;
+        try (Stream<Device> devices = devicesApi.streamDevices(filter)) {
+            Iterator<Device> iterator = devices.iterator();
+            while (iterator.hasNext()) {
+                execution.submit(iterator.next().getId());
+                submitted++;
+            }
+        }
+        execution.total = submitted;
+        return execution.awaitCompletion();
+    }
+
+    private final class Execution {
+        private final Key command;
+        private final Map<String, JsonNode> arguments;
+        private final BulkCommandListener listener;
+        private final Semaphore permits = new Semaphore(concurrency);
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger throttled = new AtomicInteger();
+        private final long startedAt = System.nanoTime();
+        private volatile int total = -1;
+
+        Execution(Key command, Map<String, JsonNode> arguments, BulkCommandListener listener) {
+            this.command = checkNotNull(command);
+            this.arguments = arguments;
+            this.listener = checkNotNull(listener);
+        }
+
+        /**
+         * A timed out command is reported as failed right away, but its permit is held until the HTTP exchange
+         * itself completes, which a timeout does not abort, so no more than <i>concurrency</i> requests are ever
+         * in flight.
+         */
+        void submit(String deviceId) throws InterruptedException {
+            permits.acquire();
+            long sentAt = System.nanoTime();
+            CompletableFuture<CommandResponse> sent;
+            try {
+                sent = xapi.executeCommandAsync(command, new CommandRequest(deviceId, arguments));
+            } catch (RuntimeException ex) {
+                complete(new BulkCommandResult(deviceId, null, ex, Duration.ofNanos(System.nanoTime() - sentAt)));
+                permits.release();
+                return;
+            }
+            CompletableFuture<Void> reported = sent.copy()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((response, error) -> {
+                    Throwable cause = error == null ? null : Http.unwrap(error);
+                    complete(new BulkCommandResult(deviceId, response, cause, Duration.ofNanos(System.nanoTime() - sentAt)));
+                    return null;
+                });
+            CompletableFuture.allOf(sent, reported).whenComplete((ignored, error) -> permits.release());
+        }
+
+        private void complete(BulkCommandResult result) {
+            latencies.record(result.latency());
+            if (result.isSuccess()) {
+                succeeded.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+                if (result.isThrottled()) {
+                    throttled.incrementAndGet();
+                }
+            }
+            int done = completed.incrementAndGet();
+            try {
+                listener.onResult(result, done, total);
+            } catch (Exception ex) {
+                LOG.warn("Bulk command listener failed for device {}", result.deviceId(), ex);
+            }
+        }
+
+        BulkCommandSummary awaitCompletion() throws InterruptedException {
+            permits.acquire(concurrency);
+            permits.release(concurrency);
+            BulkCommandSummary summary = new BulkCommandSummary(
+                total,
+                succeeded.get(),
+                failed.get(),
+                throttled.get(),
+                latencies.getPercentile(50),
+                latencies.getPercentile(99),
+                Duration.ofNanos(System.nanoTime() - startedAt)
+            );
+            LOG.info("Bulk command {} completed: {}", command, summary);
+            return summary;
+        }
+    }
+
+    public static final class Builder {
+        private final XAPI xapi;
+        private DevicesApi devicesApi;
+        private int concurrency = 50;
+        private Duration timeout = Duration.ofSeconds(30);
+
+        private Builder(XAPI xapi) {
+            this.xapi = checkNotNull(xapi);
+        }
+
+        /**
+         * Required for executing commands on devices matching a {@link DevicesFilter}
+         */
+        public Builder devicesApi(DevicesApi val) {
+            devicesApi = val;
+            return this;
+        }
+
+        /**
+         * The max number of commands in flight at any time. Default 50.
+         */
+        public Builder concurrency(int val) {
+            checkArgument(val > 0, "Concurrency must be positive");
+            concurrency = val;
+            return this;
+        }
+
+        /**
+         * The timeout per device. Default 30 seconds.
+         */
+        public Builder timeout(Duration val) {
+            timeout = checkNotNull(val);
+            return this;
+        }
+
+        public BulkCommandExecutor build() {
+            return new BulkCommandExecutor(this);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.cisco.workspaceintegrations.api.xapi;
+
+/**
+ * Callback for results of a bulk command execution. Invoked from the HTTP client threads as each device completes,
+ * so implementations must be thread safe and should not block.
+ */
+@FunctionalInterface
+public interface BulkCommandListener {
+
+    /**
+     * @param result    The result for a single device
+     * @param completed The number of devices completed so far, including this one
+     * @param total     The total number of devices, or -1 while the device list is still being resolved from a filter
+     */
+    void onResult(BulkCommandResult result, int completed, int total);
+}
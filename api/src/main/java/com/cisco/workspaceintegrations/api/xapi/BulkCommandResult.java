@@ -0,0 +1,30 @@
+package com.cisco.workspaceintegrations.api.xapi;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import com.cisco.workspaceintegrations.api.http.HttpException;
+import com.cisco.workspaceintegrations.common.xapi.CommandResponse;
+
+/**
+ * The outcome of a command executed on a single device as part of a bulk execution.
+ * Exactly one of response and error is present.
+ */
+public record BulkCommandResult(String deviceId, CommandResponse response, Throwable error, Duration latency) {
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public boolean isThrottled() {
+        return error instanceof HttpException ex && ex.isTooManyRequests();
+    }
+
+    public Optional<CommandResponse> getResponse() {
+        return Optional.ofNullable(response);
+    }
+
+    public Optional<Throwable> getError() {
+        return Optional.ofNullable(error);
+    }
+}
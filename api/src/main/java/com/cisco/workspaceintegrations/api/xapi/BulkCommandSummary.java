@@ -0,0 +1,23 @@
+package com.cisco.workspaceintegrations.api.xapi;
+
+import java.time.Duration;
+
+/**
+ * Summary of a bulk command execution.
+ *
+ * @param total     The number of devices the command was sent to
+ * @param succeeded The number of successful command executions
+ * @param failed    The number of failed command executions, including the throttled ones
+ * @param throttled The number of executions that failed with 429 Too Many Requests
+ * @param p50       The median per device latency
+ * @param p99       The 99th percentile per device latency
+ * @param elapsed   The wall clock time of the whole bulk execution
+ */
+public record BulkCommandSummary(int total,
+                                 int succeeded,
+                                 int failed,
+                                 int throttled,
+                                 Duration p50,
+                                 Duration p99,
+                                 Duration elapsed) {
+}
@@ -0,0 +1,145 @@
+package com.cisco.workspaceintegrations.api.xapi;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.cisco.workspaceintegrations.common.messages.Message;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage;
+import com.cisco.workspaceintegrations.common.xapi.Key;
+import com.cisco.workspaceintegrations.common.xapi.StatusConverter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A local copy of the status of each device, kept up to date from the change notification queue, so status reads do
+ * not need to call {@link XAPI#getStatus}. Register it as (or chain it into) the
+ * {@link com.cisco.workspaceintegrations.api.queue.QueuePoller} consumer.
+ * <p>
+ * Only the statuses the integration subscribes to in its manifest are mirrored, and a device is only known after
+ * its first status message. Use {@link #isMirrored(String)} to fall back to the API for devices not seen yet.
+ * A full sync, sent when a device (re)connects, replaces the whole status of the device.
+ * <p>
+ * The status of each device is an unmodifiable map replaced on every change, copied once per change, so reads never
+ * block and always see a consistent status, and changes to different devices are applied concurrently.
+ */
+public final class DeviceStatusMirror implements Consumer<List<Message>> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeviceStatusMirror.class);
+
+    private final ConcurrentHashMap<String, DeviceStatus> devices = new ConcurrentHashMap<>();
+
+    @Override
+    public void accept(List<Message> messages) {
+        for (Message message : messages) {
+            if (message instanceof WebhookStatusMessage statusMessage) {
+                try {
+                    apply(statusMessage);
+                } catch (Exception ex) {
+                    LOG.warn("Unable to mirror status from {}", message, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * The value of an absolute leaf key, e.g. {@code RoomAnalytics.PeopleCount.Current}
+     */
+    public Optional<JsonNode> get(String deviceId, Key key) {
+        checkArgument(key.isAbsolute(), "Key must be absolute: %s", key);
+        return Optional.ofNullable(devices.get(deviceId)).map(status -> status.values().get(key));
+    }
+
+    /**
+     * The value of an absolute key converted to the given type, which may be an object built from the statuses
+     * below the key, e.g. {@code RoomAnalytics} into a class with a field per analytics value
+     */
+    public <T> Optional<T> getObject(String deviceId, Key key, Class<T> type) {
+        DeviceStatus status = devices.get(deviceId);
+        if (status == null) {
+            return Optional.empty();
+        }
+        return StatusConverter.getObject(key, type, status.values());
+    }
+
+    /**
+     * All the mirrored statuses of the device, flat by absolute key
+     */
+    public Map<Key, JsonNode> getAll(String deviceId) {
+        DeviceStatus status = devices.get(deviceId);
+        return status == null ? Map.of() : status.values();
+    }
+
+    /**
+     * If a status message has been received for the device
+     */
+    public boolean isMirrored(String deviceId) {
+        return devices.containsKey(deviceId);
+    }
+
+    public Set<String> getDeviceIds() {
+        return Set.copyOf(devices.keySet());
+    }
+
+    /**
+     * Forgets the status of a device, e.g. when it is deleted
+     */
+    public void remove(String deviceId) {
+        devices.remove(deviceId);
+    }
+
+    public void clear() {
+        devices.clear();
+    }
+
+    private void apply(WebhookStatusMessage message) {
+        checkNotNull(message.deviceId(), "Status message without device id");
+        Map<Key, JsonNode> updated = message.changes().updated();
+        // A removed key takes the statuses below it along, e.g. a disconnected peripheral
+        List<Key> removed = new ArrayList<>();
+        for (Key removedKey : message.changes().removed()) {
+            removed.add(removedKey);
+            removed.add(removedKey.append("*"));
+        }
+        devices.compute(message.deviceId(), (deviceId, current) -> {
+            if (message.isFullSync()) {
+                return new DeviceStatus(Map.copyOf(updated), message.timestamp());
+            }
+            if (current != null && (message.timestamp().isBefore(current.fullSyncAt()) || updated.isEmpty() && removed.isEmpty())) {
+                // Already reflected by a later full sync, or nothing changed
+                return current;
+            }
+            // The only copy of the status, never modified once published
+            Map<Key, JsonNode> values = current == null ? new HashMap<>() : new HashMap<>(current.values());
+            if (!removed.isEmpty()) {
+                values.keySet().removeIf(key -> isRemoved(key, removed));
+            }
+            values.putAll(updated);
+            return new DeviceStatus(Collections.unmodifiableMap(values), current == null ? Instant.MIN : current.fullSyncAt());
+        });
+    }
+
+    private static boolean isRemoved(Key key, List<Key> removed) {
+        for (Key removedKey : removed) {
+            if (removedKey.encloses(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record DeviceStatus(Map<Key, JsonNode> values, Instant fullSyncAt) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.cisco.workspaceintegrations.api.xapi;
 
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -28,7 +29,7 @@ public class XAPI extends WebexDeveloperApi {
     }
 
     public StatusResponse getStatus(String deviceId, Key name) {
-        return this.getWebexHttp().get(
+        return this.getWebexHttp().getHedged(
             statusUrl,
             StatusResponse.class,
             ImmutableMap.of("deviceId", deviceId, "name", name)
@@ -46,4 +47,24 @@ public class XAPI extends WebexDeveloperApi {
     public CommandResponse executeCommand(Key command, CommandRequest request) {
         return this.getWebexHttp().post(urlFor("command/" + command), request, CommandResponse.class);
     }
+
+    public CompletableFuture<StatusResponse> getStatusAsync(String deviceId, Key name) {
+        return this.getWebexHttp().getHedgedAsync(
+            statusUrl,
+            StatusResponse.class,
+            ImmutableMap.of("deviceId", deviceId, "name", name)
+        );
+    }
+
+    public CompletableFuture<StatusResponse> getAllStatusesAsync(String deviceId) {
+        return this.getWebexHttp().getAsync(
+            statusUrl,
+            StatusResponse.class,
+            ImmutableMap.of("deviceId", deviceId, "name", key("*.*"))
+        );
+    }
+
+    public CompletableFuture<CommandResponse> executeCommandAsync(Key command, CommandRequest request) {
+        return this.getWebexHttp().postAsync(urlFor("command/" + command), request, CommandResponse.class);
+    }
 }
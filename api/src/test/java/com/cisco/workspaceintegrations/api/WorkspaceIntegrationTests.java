@@ -0,0 +1,43 @@
+package com.cisco.workspaceintegrations.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.testng.annotations.Test;
+
+import com.cisco.workspaceintegrations.api.core.ExecutorFactory;
+import com.cisco.workspaceintegrations.api.core.LogOnlyProvisioningChangedListener;
+import com.cisco.workspaceintegrations.common.oauth.OAuthClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WorkspaceIntegrationTests {
+
+    @Test
+    public void testCloseShutsDownTheHttpExecutor() {
+        List<ExecutorService> executors = new ArrayList<>();
+        ExecutorFactory factory = new ExecutorFactory() {
+            @Override
+            public ThreadFactory threadFactory(String name) {
+                return ExecutorFactory.platformThreads().threadFactory(name);
+            }
+
+            @Override
+            public ExecutorService newExecutor(String name) {
+                ExecutorService executor = Executors.newCachedThreadPool(threadFactory(name));
+                executors.add(executor);
+                return executor;
+            }
+        };
+        WorkspaceIntegration integration = new WorkspaceIntegration("WorkspaceIntegrationTests",
+                                                                    new OAuthClient("fooClient", "barSecret"),
+                                                                    new LogOnlyProvisioningChangedListener(),
+                                                                    factory);
+        assertThat(executors).hasSize(1);
+        integration.close();
+        assertThat(executors.get(0).isShutdown()).isTrue();
+    }
+}
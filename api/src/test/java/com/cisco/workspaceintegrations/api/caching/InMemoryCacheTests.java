@@ -0,0 +1,242 @@
+package com.cisco.workspaceintegrations.api.caching;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.cisco.workspaceintegrations.api.http.HttpException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class InMemoryCacheTests {
+
+    @Test
+    public void testGetAllLoadsMissesInParallelAndSkipsFailures() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger loads = new AtomicInteger();
+        InMemoryCache<String> cache = new InMemoryCache<>() {
+            @Override
+            protected String load(String key) {
+                loads.incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                    if (key.equals("deleted")) {
+                        throw new IllegalStateException("Not found");
+                    }
+                    return key.toUpperCase();
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+        cache.put("a", "cached");
+
+        Map<String, String> values = cache.getAll(List.of("a", "b", "c", "deleted", "d", "b"), 2);
+
+        assertThat(values).containsExactly(Map.entry("a", "cached"), Map.entry("b", "B"), Map.entry("c", "C"), Map.entry("d", "D"));
+        assertThat(loads.get()).isEqualTo(4);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+        assertThat(cache.get("c")).isEqualTo("C");
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testNotFoundIsNegativelyCached() {
+        AtomicInteger loads = new AtomicInteger();
+        InMemoryCache<String> cache = new InMemoryCache<>(CacheOptions.builder().negativeTtl(Duration.ofMinutes(1)).build()) {
+            @Override
+            protected String load(String key) {
+                loads.incrementAndGet();
+                throw new HttpException(404, "GET", "Not found", URI.create("https://webexapis.com/v1/devices/" + key), "id");
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            Throwable error = catchThrowable(() -> cache.get("unknown"));
+            assertThat(error).hasCauseInstanceOf(HttpException.class);
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+        assertThat(cache.stats().negativeHitCount()).isEqualTo(2);
+
+        cache.invalidate("unknown");
+        catchThrowable(() -> cache.get("unknown"));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testAgedEntryIsServedWhileReloadingInTheBackground() {
+        MutableClock clock = new MutableClock();
+        Queue<Runnable> reloads = new ArrayDeque<>();
+        AtomicInteger loads = new AtomicInteger();
+        InMemoryCache<String> cache = new InMemoryCache<>(refreshAheadOptions(clock, reloads)) {
+            @Override
+            protected String load(String key) {
+                return key + loads.incrementAndGet();
+            }
+        };
+        assertThat(cache.get("a")).isEqualTo("a1");
+
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(cache.get("a")).isEqualTo("a1");
+        assertThat(reloads).hasSize(1);
+        assertThat(loads.get()).isEqualTo(1);
+
+        reloads.remove().run();
+        assertThat(cache.get("a")).isEqualTo("a2");
+        assertThat(reloads).isEmpty();
+    }
+
+    @Test
+    public void testFailedReloadKeepsTheOldValueUntilTheTtlEnds() {
+        MutableClock clock = new MutableClock();
+        Queue<Runnable> reloads = new ArrayDeque<>();
+        AtomicInteger loads = new AtomicInteger();
+        InMemoryCache<String> cache = new InMemoryCache<>(refreshAheadOptions(clock, reloads)) {
+            @Override
+            protected String load(String key) {
+                if (loads.incrementAndGet() > 1) {
+                    throw new IllegalStateException("Unavailable");
+                }
+                return key + loads.get();
+            }
+        };
+        assertThat(cache.get("a")).isEqualTo("a1");
+
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(cache.get("a")).isEqualTo("a1");
+        reloads.remove().run();
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.get("a")).isEqualTo("a1");
+        // The failed reload is retried on the next read
+        reloads.remove().run();
+        assertThat(loads.get()).isEqualTo(3);
+
+        clock.advance(Duration.ofMinutes(3));
+        assertThat(catchThrowable(() -> cache.get("a"))).hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testExpiredValueIsServedWhenLoadingFails() {
+        MutableClock clock = new MutableClock();
+        AtomicInteger loads = new AtomicInteger();
+        CacheOptions options = CacheOptions.builder()
+                                           .ttl(Duration.ofMinutes(5))
+                                           .staleIfError(Duration.ofMinutes(10))
+                                           .clock(clock)
+                                           .build();
+        InMemoryCache<String> cache = new InMemoryCache<>(options) {
+            @Override
+            protected String load(String key) {
+                if (loads.incrementAndGet() > 1) {
+                    throw new IllegalStateException("Unavailable");
+                }
+                return key + loads.get();
+            }
+        };
+        assertThat(cache.get("a")).isEqualTo("a1");
+
+        clock.advance(Duration.ofMinutes(6));
+        assertThat(cache.get("a")).isEqualTo("a1");
+        assertThat(loads.get()).isEqualTo(2);
+
+        clock.advance(Duration.ofMinutes(10));
+        assertThat(catchThrowable(() -> cache.get("a"))).hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testSnapshotIsRestored() throws IOException {
+        AtomicInteger loads = new AtomicInteger();
+        InMemoryCache<String> cache = newUpperCaseCache(loads);
+        cache.get("a");
+        cache.get("b");
+
+        Path directory = Files.createTempDirectory("cache");
+        Path snapshot = directory.resolve("snapshot.bin");
+        try {
+            assertThat(cache.saveSnapshot(snapshot)).isEqualTo(2);
+
+            InMemoryCache<String> restarted = newUpperCaseCache(loads);
+            assertThat(restarted.loadSnapshot(snapshot)).isEqualTo(2);
+            assertThat(restarted.get("a")).isEqualTo("A");
+            assertThat(restarted.get("b")).isEqualTo("B");
+            assertThat(loads.get()).isEqualTo(2);
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testSnapshotsRequireTheValueType() {
+        InMemoryCache<String> cache = new InMemoryCache<>() {
+            @Override
+            protected String load(String key) {
+                return key;
+            }
+        };
+        assertThat(catchThrowable(() -> cache.saveSnapshot(Path.of("snapshot.bin")))).isInstanceOf(IllegalStateException.class);
+        assertThat(catchThrowable(() -> cache.loadSnapshot(Path.of("snapshot.bin")))).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static InMemoryCache<String> newUpperCaseCache(AtomicInteger loads) {
+        return new InMemoryCache<>(String.class, CacheOptions.defaults()) {
+            @Override
+            protected String load(String key) {
+                loads.incrementAndGet();
+                return key.toUpperCase();
+            }
+        };
+    }
+
+    private static CacheOptions refreshAheadOptions(Clock clock, Queue<Runnable> reloads) {
+        return CacheOptions.builder()
+                           .ttl(Duration.ofMinutes(5))
+                           .refreshAfter(Duration.ofMinutes(1))
+                           .refreshExecutor(reloads::add)
+                           .clock(clock)
+                           .build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExecutorFactoryTests {
+
+    @Test
+    public void testPlatformThreadsAreNamed() throws Exception {
+        ExecutorFactory factory = ExecutorFactory.platformThreads();
+        Thread thread = factory.threadFactory("worker").newThread(() -> { });
+        assertThat(thread.getName()).isEqualTo("worker-1");
+        assertThat(thread.isDaemon()).isFalse();
+
+        ScheduledExecutorService scheduler = factory.newScheduledExecutor("timer");
+        try {
+            Thread scheduled = scheduler.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+            assertThat(scheduled.getName()).isEqualTo("timer-1");
+            assertThat(scheduled.isDaemon()).isTrue();
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testVirtualThreadsWhenSupported() throws Exception {
+        if (!ExecutorFactory.isVirtualThreadsSupported()) {
+            assertThat(Runtime.version().feature()).isLessThan(21);
+            assertThatThrownBy(ExecutorFactory::virtualThreads).isInstanceOf(UnsupportedOperationException.class);
+            return;
+        }
+        ExecutorService executor = ExecutorFactory.virtualThreads().newExecutor("virtual");
+        try {
+            Thread thread = CompletableFuture.supplyAsync(Thread::currentThread, executor).get(5, TimeUnit.SECONDS);
+            assertThat(thread.getName()).isEqualTo("virtual-1");
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
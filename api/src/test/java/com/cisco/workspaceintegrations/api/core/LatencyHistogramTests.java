@@ -0,0 +1,46 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.time.Duration;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTests {
+
+    @Test
+    public void testPercentilesAreWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(Duration.ofMillis(millis));
+        }
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(Duration.ofMillis(1000));
+        assertThat(histogram.getMean().toNanos()).isCloseTo(Duration.ofMillis(500).toNanos() + 500_000, within(1L));
+        assertThat(histogram.getPercentile(50).toNanos()).isCloseTo(Duration.ofMillis(500).toNanos(), within(15_000_000L));
+        assertThat(histogram.getPercentile(99).toNanos()).isCloseTo(Duration.ofMillis(990).toNanos(), within(30_000_000L));
+        assertThat(histogram.getPercentile(100)).isEqualTo(histogram.getMax());
+
+        histogram.reset();
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getPercentile(99)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        long[] values = {0, 1, 63, 64, 65, 1_000, 123_456_789, Long.MAX_VALUE};
+        int previous = -1;
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(index).isGreaterThanOrEqualTo(previous);
+            assertThat(LatencyHistogram.highestEquivalentValue(index)).isGreaterThanOrEqualTo(value);
+            previous = index;
+        }
+
+        // Clock adjustments can yield negative latencies, which count as zero
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertThat(histogram.getPercentile(50)).isEqualTo(Duration.ZERO);
+    }
+}
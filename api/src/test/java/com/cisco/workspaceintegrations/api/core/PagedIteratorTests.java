@@ -0,0 +1,84 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PagedIteratorTests {
+
+    private static final URI SECOND_PAGE = URI.create("https://webexapis.com/v1/devices?cursor=abc");
+
+    @Test
+    public void testLinksAreFollowedBeforeOffsets() {
+        List<String> fetched = new ArrayList<>();
+        Stream<String> items = PagedIterator.stream(
+            2,
+            offset -> {
+                fetched.add("offset " + offset);
+                return CompletableFuture.completedFuture(new ListResponse<>(offset == 0 ? List.of("a", "b") : List.of("e")));
+            },
+            link -> {
+                fetched.add("link " + link.getQuery());
+                return CompletableFuture.completedFuture(new ListResponse<>(List.of("c", "d")));
+            });
+        assertThat(fetched).isEmpty();
+
+        // The first page has no link, so paging is by offset until a page gives a link
+        List<String> all = items.collect(Collectors.toList());
+        assertThat(all).containsExactly("a", "b", "e");
+        assertThat(fetched).containsExactly("offset 0", "offset 2");
+
+        fetched.clear();
+        List<String> linked = PagedIterator.stream(
+            2,
+            offset -> {
+                fetched.add("offset " + offset);
+                return CompletableFuture.completedFuture(
+                    offset == 0 ? new ListResponse<>(List.of("a", "b"), SECOND_PAGE) : new ListResponse<>(List.<String>of()));
+            },
+            link -> {
+                fetched.add("link " + link.getQuery());
+                return CompletableFuture.completedFuture(new ListResponse<>(List.of("c", "d")));
+            }).collect(Collectors.toList());
+        // A full page without a link is followed by an offset fetch, which here returns an empty last page
+        assertThat(linked).containsExactly("a", "b", "c", "d");
+        assertThat(fetched).containsExactly("offset 0", "link cursor=abc", "offset 4");
+    }
+
+    @Test
+    public void testShortPageIsTheLast() {
+        List<Integer> offsets = new ArrayList<>();
+        PagedIterator<String> iterator = new PagedIterator<>(
+            3,
+            offset -> {
+                offsets.add(offset);
+                return CompletableFuture.completedFuture(new ListResponse<>(offset == 0 ? List.of("a", "b", "c") : List.of("d")));
+            },
+            link -> CompletableFuture.failedFuture(new AssertionError("No links")));
+        List<String> items = new ArrayList<>();
+        iterator.forEachRemaining(items::add);
+        assertThat(items).containsExactly("a", "b", "c", "d");
+        assertThat(offsets).containsExactly(0, 3);
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testCloseCancelsThePrefetch() {
+        CompletableFuture<ListResponse<String>> secondPage = new CompletableFuture<>();
+        PagedIterator<String> iterator = new PagedIterator<>(
+            1,
+            offset -> offset == 0 ? CompletableFuture.completedFuture(new ListResponse<>(List.of("a"))) : secondPage,
+            link -> CompletableFuture.failedFuture(new AssertionError("No links")));
+        assertThat(iterator.next()).isEqualTo("a");
+        iterator.close();
+        assertThat(secondPage).isCancelled();
+        assertThat(iterator.hasNext()).isFalse();
+    }
+}
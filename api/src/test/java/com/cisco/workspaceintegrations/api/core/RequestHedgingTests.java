@@ -0,0 +1,101 @@
+package com.cisco.workspaceintegrations.api.core;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestHedgingTests {
+
+    private static final URI STATUS_URI = URI.create("https://webexapis.com/v1/xapi/status?deviceId=foo");
+
+    @Test
+    public void testSlowRequestsAreHedgedWithinBudget() {
+        List<Runnable> hedgeChecks = new ArrayList<>();
+        RequestHedging hedging = new RequestHedging(95, 0.05, (task, delay) -> hedgeChecks.add(task));
+        for (int i = 0; i < 100; i++) {
+            hedging.execute(STATUS_URI, () -> CompletableFuture.completedFuture("fast")).join();
+        }
+
+        AtomicInteger attempts = new AtomicInteger();
+        List<CompletableFuture<String>> stuck = new ArrayList<>();
+        CompletableFuture<String> result = hedging.execute(STATUS_URI, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                CompletableFuture<String> slow = new CompletableFuture<>();
+                stuck.add(slow);
+                return slow;
+            }
+            return CompletableFuture.completedFuture("hedged");
+        });
+        assertThat(result).isNotDone();
+        runAll(hedgeChecks);
+        assertThat(result.join()).isEqualTo("hedged");
+        assertThat(stuck.get(0)).isCancelled();
+
+        // 101 requests earned 5 hedges, one has been spent
+        AtomicInteger hedges = new AtomicInteger();
+        List<CompletableFuture<String>> slowRequests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            AtomicInteger requestAttempts = new AtomicInteger();
+            slowRequests.add(hedging.execute(STATUS_URI, () -> {
+                if (requestAttempts.incrementAndGet() > 1) {
+                    hedges.incrementAndGet();
+                }
+                return new CompletableFuture<>();
+            }));
+        }
+        runAll(hedgeChecks);
+        assertThat(hedges.get()).isEqualTo(5);
+        slowRequests.forEach(request -> request.cancel(true));
+    }
+
+    @Test
+    public void testFailedHedgeDoesNotFailThePrimary() {
+        List<Runnable> hedgeChecks = new ArrayList<>();
+        RequestHedging hedging = new RequestHedging(95, 0.05, (task, delay) -> hedgeChecks.add(task));
+        for (int i = 0; i < 100; i++) {
+            hedging.execute(STATUS_URI, () -> CompletableFuture.completedFuture("fast")).join();
+        }
+
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        CompletableFuture<String> result = hedging.execute(STATUS_URI, () -> attempts.incrementAndGet() == 1
+            ? primary
+            : CompletableFuture.failedFuture(new IllegalStateException("Connection reset")));
+        runAll(hedgeChecks);
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(result).isNotDone();
+
+        primary.complete("slow");
+        assertThat(result.join()).isEqualTo("slow");
+    }
+
+    @Test
+    public void testRequestFailsOnceEveryAttemptFailed() {
+        List<Runnable> hedgeChecks = new ArrayList<>();
+        RequestHedging hedging = new RequestHedging(95, 0.05, (task, delay) -> hedgeChecks.add(task));
+        for (int i = 0; i < 100; i++) {
+            hedging.execute(STATUS_URI, () -> CompletableFuture.completedFuture("fast")).join();
+        }
+
+        CompletableFuture<String> primary = new CompletableFuture<>();
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = hedging.execute(STATUS_URI, () -> attempts.incrementAndGet() == 1
+            ? primary
+            : CompletableFuture.failedFuture(new IllegalStateException("Connection reset")));
+        runAll(hedgeChecks);
+        primary.completeExceptionally(new IllegalStateException("Timed out"));
+        assertThat(result).isCompletedExceptionally();
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        List<Runnable> due = new ArrayList<>(tasks);
+        tasks.clear();
+        due.forEach(Runnable::run);
+    }
+}
@@ -1,7 +1,18 @@
 package com.cisco.workspaceintegrations.api.core;
 
+import java.io.ByteArrayInputStream;
 import java.net.URI;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeMethod;
@@ -10,6 +21,7 @@ import org.testng.annotations.Test;
 import com.cisco.workspaceintegrations.api.http.HttpException;
 import com.cisco.workspaceintegrations.api.utils.MockHttp;
 import com.cisco.workspaceintegrations.common.actions.Provisioning;
+import com.cisco.workspaceintegrations.common.json.Json;
 import com.cisco.workspaceintegrations.common.oauth.OAuthClient;
 import com.cisco.workspaceintegrations.common.workspaces.Workspace;
 
@@ -17,8 +29,10 @@ import static com.cisco.workspaceintegrations.api.utils.MockHttp.mockResponse;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.catchThrowableOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -137,6 +151,167 @@ public class WebexHttpTests {
         assertThat(barRequestRetried.headers().firstValue("Content-Type").get()).isEqualTo("application/json");
     }
 
+    @Test
+    public void testAsyncTokenInitIsPerformedOn401Unauthorized() throws Exception {
+        when(mockHttp.getClient().send(requestCaptor.capture(), any())).thenReturn(
+            mockResponse("{ \"access_token\": \"123abc\", \"refresh_token\": \"12345\" }", 200),
+            mockResponse("{ \"access_token\": \"456def\", \"refresh_token\": \"12345\" }", 200)
+        );
+        when(mockHttp.getClient().sendAsync(requestCaptor.capture(), any())).thenReturn(
+            CompletableFuture.completedFuture(mockResponse("{}", 401)),
+            CompletableFuture.completedFuture(mockResponse("{}", 200))
+        );
+        webexHttp.getAsync(URI.create("https://integration.webexapis.com/v1/worskpaces/foo"), Workspace.class).join();
+
+        // Captured in invocation order: token, foo (401), token, foo retried
+        HttpRequest fooRequest = requestCaptor.getAllValues().get(1);
+        assertThat(fooRequest.headers().firstValue("Authorization").get()).isEqualTo("Bearer 123abc");
+
+        HttpRequest initTokenRequestOn401 = requestCaptor.getAllValues().get(2);
+        assertThat(initTokenRequestOn401.uri()).isEqualTo(URI.create("https://integration.webexapis.com/v1/access_token"));
+
+        HttpRequest fooRequestRetried = requestCaptor.getAllValues().get(3);
+        assertThat(fooRequestRetried.uri()).isEqualTo(URI.create("https://integration.webexapis.com/v1/worskpaces/foo"));
+        assertThat(fooRequestRetried.headers().firstValue("Authorization").get()).isEqualTo("Bearer 456def");
+    }
+
+    @Test
+    public void testConcurrentAsync401sShareOneTokenRefresh() throws Exception {
+        when(mockHttp.getClient().send(requestCaptor.capture(), any())).thenReturn(
+            mockResponse("{ \"access_token\": \"123abc\", \"refresh_token\": \"12345\" }", 200),
+            mockResponse("{ \"access_token\": \"456def\", \"refresh_token\": \"12345\" }", 200)
+        );
+        CompletableFuture<HttpResponse<Object>> foo = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<Object>> bar = new CompletableFuture<>();
+        when(mockHttp.getClient().sendAsync(any(), any())).thenReturn(
+            foo, bar,
+            CompletableFuture.completedFuture(mockResponse("{}", 200)),
+            CompletableFuture.completedFuture(mockResponse("{}", 200))
+        );
+        CompletableFuture<Workspace> fooResult = webexHttp.getAsync(URI.create("https://integration.webexapis.com/v1/worskpaces/foo"), Workspace.class);
+        CompletableFuture<Workspace> barResult = webexHttp.getAsync(URI.create("https://integration.webexapis.com/v1/worskpaces/bar"), Workspace.class);
+        foo.complete(mockResponse("{}", 401));
+        bar.complete(mockResponse("{}", 401));
+        fooResult.join();
+        barResult.join();
+
+        verify(mockHttp.getClient(), times(2)).send(any(), any());
+        verify(mockHttp.getClient(), times(4)).sendAsync(any(), any());
+    }
+
+    @Test
+    public void testAccessTokenIsRefreshedAheadOfExpiry() throws Exception {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        ExecutorFactory executorFactory = new ExecutorFactory() {
+            @Override
+            public ThreadFactory threadFactory(String name) {
+                return ExecutorFactory.platformThreads().threadFactory(name);
+            }
+
+            @Override
+            public ScheduledExecutorService newScheduledExecutor(String name) {
+                return scheduler;
+            }
+        };
+        WebexHttp refreshing = new WebexHttp(mockHttp, new OAuthClient("fooClient", "barSecret"),
+                                             webexHttp.getProvisioning(), provisioningChangedListener,
+                                             WebexHttpOptions.defaults(), executorFactory);
+        when(mockHttp.getClient().send(requestCaptor.capture(), any())).thenReturn(
+            mockResponse("{ \"access_token\": \"123abc\", \"expires_in\": 100, \"refresh_token\": \"12345\" }", 200),
+            mockResponse("{}", 200),
+            mockResponse("{ \"access_token\": \"456def\", \"expires_in\": 3600, \"refresh_token\": \"67890\" }", 200),
+            mockResponse("{}", 200)
+        );
+        refreshing.get(URI.create("https://integration.webexapis.com/v1/worskpaces/foo"), Workspace.class);
+
+        // The background refresh is scheduled at 80% of the 100 second lifetime, run it right away
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        verify(scheduler).schedule(refresh.capture(), delay.capture(), eq(TimeUnit.MILLISECONDS));
+        assertThat(delay.getValue()).isBetween(70_000L, 80_000L);
+        refresh.getValue().run();
+
+        verify(provisioningChangedListener).refreshTokenChanged(eq("67890"));
+        refreshing.get(URI.create("https://integration.webexapis.com/v1/worskpaces/bar"), Workspace.class);
+        HttpRequest refreshRequest = requestCaptor.getAllValues().get(2);
+        assertThat(refreshRequest.uri()).isEqualTo(URI.create("https://integration.webexapis.com/v1/access_token"));
+        HttpRequest barRequest = requestCaptor.getAllValues().get(3);
+        assertThat(barRequest.headers().firstValue("Authorization").get()).isEqualTo("Bearer 456def");
+        // The next refresh is scheduled for the new token
+        verify(scheduler, times(2)).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testIdenticalConcurrentGetsAreCoalesced() throws Exception {
+        WebexHttp coalescing = new WebexHttp(mockHttp, new OAuthClient("fooClient", "barSecret"),
+                                             webexHttp.getProvisioning(), provisioningChangedListener,
+                                             WebexHttpOptions.builder().coalesceGets(true).build(),
+                                             ExecutorFactory.platformThreads());
+        CompletableFuture<HttpResponse<Object>> pending = new CompletableFuture<>();
+        when(mockHttp.getClient().send(any(), any())).thenReturn(
+            mockResponse("{ \"access_token\": \"123abc\", \"refresh_token\": \"12345\" }", 200)
+        );
+        when(mockHttp.getClient().sendAsync(any(), any())).thenReturn(pending);
+
+        URI uri = URI.create("https://integration.webexapis.com/v1/workspaces/foo");
+        CompletableFuture<Workspace> first = coalescing.getAsync(uri, Workspace.class);
+        CompletableFuture<Workspace> second = coalescing.getAsync(uri, Workspace.class);
+        pending.complete(mockResponse("{ \"id\": \"foo\" }", 200));
+
+        assertThat(first.join()).isSameAs(second.join());
+        verify(mockHttp.getClient(), times(1)).sendAsync(any(), any());
+        coalescing.close();
+    }
+
+    @Test
+    public void testNotModifiedReusesPreviousResponse() throws Exception {
+        WebexHttp conditional = new WebexHttp(mockHttp, new OAuthClient("fooClient", "barSecret"),
+                                              webexHttp.getProvisioning(), provisioningChangedListener,
+                                              WebexHttpOptions.builder().conditionalGets(100).build(),
+                                              ExecutorFactory.platformThreads());
+        when(mockHttp.getClient().send(requestCaptor.capture(), any())).thenReturn(
+            mockResponse("{ \"access_token\": \"123abc\", \"refresh_token\": \"12345\" }", 200),
+            mockResponse("{ \"id\": \"foo\" }", 200, Map.of("ETag", List.of("\"v1\""))),
+            mockResponse("", 304)
+        );
+        URI uri = URI.create("https://integration.webexapis.com/v1/workspaces/foo");
+        Workspace first = conditional.get(uri, Workspace.class);
+        Workspace second = conditional.get(uri, Workspace.class);
+
+        assertThat(second).isSameAs(first);
+        assertThat(requestCaptor.getAllValues().get(1).headers().firstValue("If-None-Match")).isEmpty();
+        assertThat(requestCaptor.getAllValues().get(2).headers().firstValue("If-None-Match")).contains("\"v1\"");
+        conditional.close();
+    }
+
+    @Test
+    public void testNextPageLinkIsParsed() {
+        HttpHeaders headers = HttpHeaders.of(
+            Map.of("Link", List.of("<https://webexapis.com/v1/devices?start=0&max=2>; rel=\"first\", "
+                                       + "<https://webexapis.com/v1/devices?start=2&max=2>; rel=\"next\"")),
+            (a, b) -> true);
+        assertThat(WebexHttp.nextPageLink(headers)).contains(URI.create("https://webexapis.com/v1/devices?start=2&max=2"));
+        assertThat(WebexHttp.nextPageLink(HttpHeaders.of(Map.of(), (a, b) -> true))).isEmpty();
+    }
+
+    @Test
+    public void testItemsAreStreamedToConsumer() throws Exception {
+        String page = "{ \"notes\": { \"skipped\": [1, 2] }, \"items\": [ { \"id\": \"a\" }, { \"id\": \"b\" } ] }";
+        String nextPage = "https://webexapis.com/v1/workspaces?cursor=abc";
+        when(mockHttp.getClient().send(requestCaptor.capture(), any())).thenReturn(
+            mockResponse("{ \"access_token\": \"123abc\", \"refresh_token\": \"12345\" }", 200),
+            mockResponse(new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), 200,
+                         Map.of("Link", List.of("<" + nextPage + ">; rel=\"next\"")))
+        );
+        List<Workspace> workspaces = new ArrayList<>();
+        ItemsPage items = webexHttp.getItems(URI.create("https://integration.webexapis.com/v1/workspaces"), Workspace.class,
+                                             Map.of("max", 2), workspaces::add);
+        assertThat(items.count()).isEqualTo(2);
+        assertThat(items.getNextPage()).contains(URI.create(nextPage));
+        assertThat(workspaces).extracting(Workspace::getId).containsExactly("a", "b");
+        assertThat(Json.fromJsonString(page, new ListResponse.ListResponseReference<>(Workspace.class)).getItems()).hasSize(2);
+    }
+
     @Test
     public void testHttpExceptions() throws Exception {
         when(mockHttp.getClient().send(requestCaptor.capture(), any())).thenReturn(
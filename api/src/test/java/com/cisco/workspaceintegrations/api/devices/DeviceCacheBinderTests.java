@@ -0,0 +1,97 @@
+package com.cisco.workspaceintegrations.api.devices;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.cisco.workspaceintegrations.common.actions.Deprovisioning;
+import com.cisco.workspaceintegrations.common.actions.JwtDecoder;
+import com.cisco.workspaceintegrations.common.devices.Device;
+import com.cisco.workspaceintegrations.common.messages.ActionMessage;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage.WebhookStatusChanges;
+import com.cisco.workspaceintegrations.common.xapi.Key;
+
+import static com.cisco.workspaceintegrations.common.json.Json.fromJsonString;
+import static com.cisco.workspaceintegrations.common.xapi.Key.key;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeviceCacheBinderTests {
+
+    private DeviceCache cache;
+    private JwtDecoder jwtDecoder;
+    private DeviceCacheBinder binder;
+
+    @BeforeMethod
+    public void setUp() {
+        cache = new DeviceCache(mock(DevicesApi.class));
+        jwtDecoder = mock(JwtDecoder.class);
+        binder = new DeviceCacheBinder(cache, jwtDecoder);
+        cache.put("device", fromJsonString("{ \"id\": \"device\", \"workspaceId\": \"workspace\" }", Device.class));
+    }
+
+    @Test
+    public void testUnrelatedStatusKeepsDevice() {
+        binder.accept(List.of(statusMessage("workspace", key("Audio.Volume"), false)));
+        assertThat(cache.getIfPresent("device")).isPresent();
+    }
+
+    @Test
+    public void testSoftwareChangeInvalidatesDevice() {
+        binder.accept(List.of(statusMessage("workspace", key("SystemUnit.Software.Version"), false)));
+        assertThat(cache.getIfPresent("device")).isEmpty();
+    }
+
+    @Test
+    public void testIpAddressChangeIsPatchedIntoDevice() {
+        binder.accept(List.of(statusMessage("workspace", key("Network[1].IPv4.Address"), false)));
+        assertThat(cache.getIfPresent("device")).hasValueSatisfying(device -> {
+            assertThat(device.getIp()).isEqualTo("value");
+            assertThat(device.getWorkspaceId()).isEqualTo("workspace");
+        });
+    }
+
+    @Test
+    public void testRemovedNetworkInvalidatesDevice() {
+        binder.accept(List.of(new WebhookStatusMessage("device", "workspace", "org", "app", Instant.now(),
+                                                       new WebhookStatusChanges(Map.of(), Set.of(key("Network[1]"))),
+                                                       false)));
+        assertThat(cache.getIfPresent("device")).isEmpty();
+    }
+
+    @Test
+    public void testDeprovisioningInvalidatesAllAndIsDecodedOnce() {
+        ActionMessage message = new ActionMessage("jwt");
+        when(jwtDecoder.decodeAction("jwt")).thenReturn(new Deprovisioning("org", "app"));
+
+        binder.accept(List.of(message));
+        assertThat(cache.getIfPresent("device")).isEmpty();
+        assertThat(message.decodeAction(jwtDecoder)).isInstanceOf(Deprovisioning.class);
+        verify(jwtDecoder, times(1)).decodeAction("jwt");
+    }
+
+    @Test
+    public void testFullSyncAndWorkspaceMoveInvalidatesDevice() {
+        binder.accept(List.of(statusMessage("workspace", key("Audio.Volume"), true)));
+        assertThat(cache.getIfPresent("device")).isEmpty();
+
+        cache.put("device", fromJsonString("{ \"id\": \"device\", \"workspaceId\": \"workspace\" }", Device.class));
+        binder.accept(List.of(statusMessage("other-workspace", key("Audio.Volume"), false)));
+        assertThat(cache.getIfPresent("device")).isEmpty();
+    }
+
+    private static WebhookStatusMessage statusMessage(String workspaceId, Key updated, boolean isFullSync) {
+        return new WebhookStatusMessage("device", workspaceId, "org", "app", Instant.now(),
+                                        new WebhookStatusChanges(Map.of(updated, TextNode.valueOf("value")), Set.of()),
+                                        isFullSync);
+    }
+}
@@ -0,0 +1,390 @@
+package com.cisco.workspaceintegrations.api.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.base.Ticker;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.cisco.workspaceintegrations.api.metrics.InMemoryMetrics;
+import com.cisco.workspaceintegrations.api.metrics.MetricsSnapshot;
+import com.cisco.workspaceintegrations.api.tracing.Span;
+import com.cisco.workspaceintegrations.api.tracing.Tracer;
+
+import static com.cisco.workspaceintegrations.api.utils.MockHttp.mockResponse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HttpTests {
+
+    private static final URI DEVICES_URI = URI.create("https://webexapis.com/v1/devices/foo");
+
+    private HttpClient client;
+    private Http http;
+
+    @BeforeMethod
+    public void setUp() {
+        client = mock(HttpClient.class);
+        http = Http.builder("HttpTests")
+                   .client(client)
+                   .retryPolicy(RetryPolicy.builder().baseDelay(Duration.ofMillis(1)).maxRetries(2).build())
+                   .build();
+    }
+
+    @Test
+    public void testServiceUnavailableIsRetried() throws Exception {
+        when(client.send(any(), any())).thenReturn(
+            mockResponse("Busy", 503),
+            mockResponse("{}", 200)
+        );
+        HttpResponse<String> response = http.execute(http.defaultRequestBuilder(DEVICES_URI).GET().build());
+        assertThat(response.statusCode()).isEqualTo(200);
+        verify(client, times(2)).send(any(), any());
+    }
+
+    @Test
+    public void testRetriesAreLimited() throws Exception {
+        when(client.send(any(), any())).thenReturn(mockResponse("Slow down", 429));
+        HttpException ex = catchThrowableOfType(
+            () -> http.execute(http.defaultRequestBuilder(DEVICES_URI).GET().build()),
+            HttpException.class);
+        assertThat(ex.isTooManyRequests()).isTrue();
+        verify(client, times(3)).send(any(), any());
+    }
+
+    @Test
+    public void testBadGatewayIsNotRetriedForPost() throws Exception {
+        when(client.send(any(), any())).thenReturn(mockResponse("Bad gateway", 502));
+        HttpRequest post = http.defaultRequestBuilder(DEVICES_URI).POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+        HttpException ex = catchThrowableOfType(() -> http.execute(post), HttpException.class);
+        assertThat(ex.isBadGateway()).isTrue();
+        verify(client, times(1)).send(any(), any());
+    }
+
+    @Test
+    public void testPostIsOnlyRetriedWhenNotProcessed() throws Exception {
+        HttpRequest post = http.defaultRequestBuilder(DEVICES_URI).POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+        when(client.send(any(), any())).thenReturn(mockResponse("Busy", 503));
+        catchThrowableOfType(() -> http.execute(post), HttpException.class);
+        verify(client, times(1)).send(any(), any());
+
+        when(client.send(any(), any())).thenReturn(
+            mockResponse("Slow down", 429),
+            mockResponse("Busy", 503, Map.of("Retry-After", List.of("0"))),
+            mockResponse("{}", 200)
+        );
+        assertThat(http.execute(post).statusCode()).isEqualTo(200);
+        verify(client, times(4)).send(any(), any());
+    }
+
+    @Test
+    public void testAsyncServiceUnavailableIsRetried() {
+        when(client.sendAsync(any(), any())).thenReturn(
+            CompletableFuture.completedFuture(mockResponse("Busy", 503)),
+            CompletableFuture.completedFuture(mockResponse("{}", 200))
+        );
+        HttpResponse<String> response = http.executeAsync(http.defaultRequestBuilder(DEVICES_URI).GET().build()).join();
+        assertThat(response.statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testEndpointFamilies() {
+        assertThat(EndpointFamily.of(URI.create("https://webexapis.com/v1/xapi/command/Call.Disconnect"))).isEqualTo("xapi/command");
+        assertThat(EndpointFamily.of(URI.create("https://webexapis.com/v1/xapi/status?name=foo"))).isEqualTo("xapi/status");
+        assertThat(EndpointFamily.of(URI.create("https://webexapis.com/v1/devices/abc"))).isEqualTo("devices");
+        assertThat(EndpointFamily.of(URI.create("https://webexapis.com/v1/workspaces"))).isEqualTo("workspaces");
+    }
+
+    @Test
+    public void testPrewarmSendsOneHeadPerOrigin() {
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        when(client.sendAsync(requests.capture(), any())).thenReturn(
+            CompletableFuture.completedFuture(mockResponse(null, 200)),
+            CompletableFuture.failedFuture(new IOException("Connection refused"))
+        );
+        http.prewarm(List.of(DEVICES_URI,
+                             URI.create("https://webexapis.com/v1/workspaces"),
+                             URI.create("https://xapi-a.wbx2.com/jwks")), Duration.ofSeconds(1)).join();
+
+        assertThat(requests.getAllValues()).extracting(HttpRequest::uri).containsExactly(
+            URI.create("https://webexapis.com/"), URI.create("https://xapi-a.wbx2.com/"));
+        assertThat(requests.getAllValues()).extracting(HttpRequest::method).containsOnly("HEAD");
+    }
+
+    @Test
+    public void testCompressedResponseIsDecodedAsItArrives() throws Exception {
+        String json = "{ \"items\": [" + "{ \"id\": \"device\" },".repeat(10000) + "{} ] }";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(decompress("gzip", compressed.toByteArray()).join()).isEqualTo(json);
+        assertThat(http.defaultRequestBuilder(DEVICES_URI).build().headers().firstValue("Accept-Encoding")).contains("gzip, deflate");
+    }
+
+    @Test
+    public void testConcatenatedGzipMembersAreDecoded() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        for (String part : List.of("{ \"id\": ", "\"device\" }")) {
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(part.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        assertThat(decompress("gzip", compressed.toByteArray()).join()).isEqualTo("{ \"id\": \"device\" }");
+    }
+
+    @Test
+    public void testCorruptGzipTrailerFailsTheBody() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write("{ \"id\": \"device\" }".getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] bytes = compressed.toByteArray();
+        // The last byte is the high byte of the uncompressed size
+        bytes[bytes.length - 1]++;
+
+        assertThat(catchThrowableOfType(() -> decompress("gzip", bytes).join(), CompletionException.class))
+            .hasCauseInstanceOf(IOException.class)
+            .hasMessageContaining("size mismatch");
+    }
+
+    @Test
+    public void testDeflatedResponseIsDecoded() throws Exception {
+        String json = "{ \"items\": [" + "{ \"id\": \"device\" },".repeat(1000) + "{} ] }";
+        ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(zlib)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(raw, new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(decompress("deflate", zlib.toByteArray()).join()).isEqualTo(json);
+        assertThat(decompress("deflate", raw.toByteArray()).join()).isEqualTo(json);
+    }
+
+    @Test
+    public void testCircuitOpensOnFailuresAndFailsFast() throws Exception {
+        List<String> transitions = new ArrayList<>();
+        AtomicLong now = new AtomicLong();
+        Http guarded = Http.builder("HttpTests")
+                           .client(client)
+                           .retryPolicy(RetryPolicy.none())
+                           .circuitBreaker(CircuitBreaker.builder()
+                                                         .windowSize(4)
+                                                         .minimumCalls(4)
+                                                         .openDuration(Duration.ofSeconds(30))
+                                                         .halfOpenProbes(1)
+                                                         .listener((family, from, to) -> transitions.add(family + " " + to))
+                                                         .ticker(ticker(now))
+                                                         .build())
+                           .build();
+        when(client.send(any(), any())).thenReturn(mockResponse("Down", 500));
+        for (int i = 0; i < 4; i++) {
+            catchThrowableOfType(() -> guarded.execute(guarded.defaultRequestBuilder(DEVICES_URI).GET().build()), HttpException.class);
+        }
+        CircuitOpenException rejected = catchThrowableOfType(
+            () -> guarded.execute(guarded.defaultRequestBuilder(DEVICES_URI).GET().build()), CircuitOpenException.class);
+        assertThat(rejected.getEndpointFamily()).isEqualTo("devices");
+        verify(client, times(4)).send(any(), any());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        when(client.send(any(), any())).thenReturn(mockResponse("{}", 200));
+        guarded.execute(guarded.defaultRequestBuilder(DEVICES_URI).GET().build());
+        assertThat(transitions).containsExactly("devices OPEN", "devices HALF_OPEN", "devices CLOSED");
+    }
+
+    @Test
+    public void testCircuitJudgesRequestsByTheirLastAttemptAndIgnoresSlowLongPolls() throws Exception {
+        CircuitBreaker breaker = CircuitBreaker.builder().windowSize(2).minimumCalls(2).slowCallDuration(Duration.ZERO).build();
+        Http guarded = Http.builder("HttpTests")
+                           .client(client)
+                           .retryPolicy(RetryPolicy.builder().baseDelay(Duration.ofMillis(1)).maxRetries(2).build())
+                           .circuitBreaker(breaker)
+                           .build();
+        when(client.send(any(), any())).thenReturn(
+            mockResponse("Busy", 503), mockResponse("{}", 200),
+            mockResponse("Busy", 503), mockResponse("{}", 200)
+        );
+        for (int i = 0; i < 2; i++) {
+            guarded.executeLongPoll(guarded.defaultRequestBuilder(DEVICES_URI).GET().build());
+        }
+        assertThat(breaker.getState("devices")).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        when(client.send(any(), any())).thenReturn(mockResponse("{}", 200));
+        guarded.execute(guarded.defaultRequestBuilder(DEVICES_URI).GET().build());
+        assertThat(breaker.getState("devices")).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testHalfOpenProbeIsReleasedWhenAsyncSendFails() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = CircuitBreaker.builder()
+                                               .windowSize(1)
+                                               .minimumCalls(1)
+                                               .openDuration(Duration.ofSeconds(30))
+                                               .halfOpenProbes(1)
+                                               .ticker(ticker(now))
+                                               .build();
+        Http guarded = Http.builder("HttpTests").client(client).retryPolicy(RetryPolicy.none()).circuitBreaker(breaker).build();
+        when(client.sendAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(mockResponse("Down", 500)));
+        catchThrowableOfType(() -> guarded.executeAsync(guarded.defaultRequestBuilder(DEVICES_URI).GET().build()).join(), Exception.class);
+        assertThat(breaker.getState("devices")).isEqualTo(CircuitBreaker.State.OPEN);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        doThrow(new IllegalStateException("Client closed")).when(client).sendAsync(any(), any());
+        catchThrowableOfType(() -> guarded.executeAsync(guarded.defaultRequestBuilder(DEVICES_URI).GET().build()).join(), Exception.class);
+
+        doReturn(CompletableFuture.completedFuture(mockResponse("{}", 200))).when(client).sendAsync(any(), any());
+        assertThat(guarded.executeAsync(guarded.defaultRequestBuilder(DEVICES_URI).GET().build()).join().statusCode()).isEqualTo(200);
+        assertThat(breaker.getState("devices")).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testRequestsAreRecordedPerEndpointFamilyAndStatus() throws Exception {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Http measured = Http.builder("HttpTests").client(client).retryPolicy(RetryPolicy.none()).metrics(metrics).build();
+        when(client.send(any(), any())).thenReturn(mockResponse("{}", 200), mockResponse("{}", 200), mockResponse("Nope", 404));
+        for (int i = 0; i < 3; i++) {
+            catchThrowableOfType(() -> measured.execute(measured.defaultRequestBuilder(DEVICES_URI).GET().build()), HttpException.class);
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.requests()).extracting(MetricsSnapshot.RequestMetrics::statusCode).containsExactly(200, 404);
+        assertThat(snapshot.requests().get(0).latency().count()).isEqualTo(2);
+        assertThat(snapshot.requestCount("devices")).isEqualTo(3);
+        assertThat(snapshot.errorCount("devices")).isEqualTo(1);
+    }
+
+    @Test
+    public void testSpanRecordsTrackingIdAndTraceHeaderIsSent() throws Exception {
+        Map<String, Object> attributes = new HashMap<>();
+        List<String> ended = new ArrayList<>();
+        Tracer tracer = new Tracer() {
+            @Override
+            public Span startSpan(String name) {
+                return new Span() {
+                    @Override
+                    public Span setAttribute(String key, String value) {
+                        attributes.put(key, value);
+                        return this;
+                    }
+
+                    @Override
+                    public Span setAttribute(String key, long value) {
+                        attributes.put(key, value);
+                        return this;
+                    }
+
+                    @Override
+                    public void recordException(Throwable error) {
+                    }
+
+                    @Override
+                    public void end() {
+                        ended.add(name);
+                    }
+                };
+            }
+
+            @Override
+            public void inject(Span span, BiConsumer<String, String> headers) {
+                headers.accept("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+            }
+        };
+        Http traced = Http.builder("HttpTests").client(client).tracer(tracer).build();
+        when(client.send(any(), any())).thenReturn(mockResponse("{}", 200));
+        traced.execute(traced.defaultRequestBuilder(DEVICES_URI).GET().build());
+
+        ArgumentCaptor<HttpRequest> sent = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(client).send(sent.capture(), any());
+        assertThat(sent.getValue().headers().firstValue("traceparent")).isPresent();
+        assertThat(ended).containsExactly("GET devices");
+        assertThat(attributes).containsEntry(Span.TRACKING_ID, "MockTrackingId")
+                              .containsEntry(Span.HTTP_STATUS_CODE, 200L)
+                              .containsEntry(Span.ENDPOINT_FAMILY, "devices");
+    }
+
+    @Test
+    public void testRequestAttemptsAreRecordedAsFlightRecorderEvents() throws Exception {
+        when(client.send(any(), any())).thenReturn(mockResponse("Busy", 503), mockResponse("{\"id\":\"foo\"}", 200));
+        Path dump = Files.createTempFile("http-requests", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.cisco.workspaceintegrations.HttpRequest");
+            recording.start();
+            http.execute(http.defaultRequestBuilder(DEVICES_URI).GET().build());
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.delete(dump);
+        assertThat(events).extracting(event -> event.getInt("statusCode")).containsExactly(503, 200);
+        assertThat(events.get(1).getString("endpointFamily")).isEqualTo("devices");
+        assertThat(events.get(1).getString("method")).isEqualTo("GET");
+        assertThat(events.get(1).getLong("bytes")).isEqualTo(12);
+    }
+
+    /**
+     * Feeds the body to a decompressing subscriber a few bytes at a time
+     */
+    private static CompletableFuture<String> decompress(String encoding, byte[] body) {
+        HttpResponse.ResponseInfo info = mock(HttpResponse.ResponseInfo.class);
+        when(info.headers()).thenReturn(HttpHeaders.of(Map.of("Content-Encoding", List.of(encoding)), (a, b) -> true));
+        HttpResponse.BodySubscriber<String> subscriber =
+            new DecompressingBodyHandler<>(HttpResponse.BodyHandlers.ofString()).apply(info);
+        subscriber.onSubscribe(mock(Flow.Subscription.class));
+        for (int offset = 0; offset < body.length; offset += 7) {
+            subscriber.onNext(List.of(ByteBuffer.wrap(body, offset, Math.min(7, body.length - offset))));
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture();
+    }
+
+    private static Ticker ticker(AtomicLong nanos) {
+        return new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+    }
+}
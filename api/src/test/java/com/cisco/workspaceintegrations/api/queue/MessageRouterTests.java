@@ -0,0 +1,84 @@
+package com.cisco.workspaceintegrations.api.queue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.testng.annotations.Test;
+
+import com.cisco.workspaceintegrations.common.messages.WebhookEventsMessage;
+import com.cisco.workspaceintegrations.common.messages.WebhookEventsMessage.Event;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage.WebhookStatusChanges;
+
+import static com.cisco.workspaceintegrations.common.xapi.Key.key;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MessageRouterTests {
+
+    @Test
+    public void testStatusAndEventsAreRoutedToMatchingHandlers() {
+        List<String> calls = new ArrayList<>();
+        MessageRouter router = new MessageRouter()
+            .onStatus(key("RoomAnalytics.PeopleCount.Current"), Integer.class,
+                      (message, key, count) -> calls.add("count " + count))
+            .onStatus(key("Peripherals.ConnectedDevice[*].RoomAnalytics.AmbientTemperature"), String.class,
+                      (message, key, value) -> calls.add("temperature " + key.arrayIndexOf("ConnectedDevice") + " " + value))
+            .onStatus(key("Standby.State"), String.class, (message, key, value) -> calls.add("standby " + value))
+            .onEvent(key("BootEvent"), String.class, (message, event, value) -> calls.add("boot " + value));
+
+        WebhookStatusMessage status = new WebhookStatusMessage(
+            "device", "workspace", "org", "app", Instant.now(),
+            new WebhookStatusChanges(Map.of(
+                key("RoomAnalytics.PeopleCount.Current"), IntNode.valueOf(4),
+                key("Peripherals.ConnectedDevice[1003].RoomAnalytics.AmbientTemperature"), TextNode.valueOf("21.5"),
+                key("Audio.Volume"), IntNode.valueOf(50)
+            ), Set.of()),
+            false);
+        WebhookEventsMessage events = new WebhookEventsMessage(
+            "device", "workspace", "org", "app", Instant.now(),
+            List.of(new Event(key("BootEvent"), TextNode.valueOf("cold"), Instant.now())));
+        router.accept(List.of(status, events));
+
+        assertThat(calls).containsExactlyInAnyOrder("count 4", "temperature 1003 21.5", "boot cold");
+    }
+
+    @Test
+    public void testObjectSubscriptionsGetTheUpdatedPartOfTheObjectOncePerMessage() {
+        List<String> calls = new ArrayList<>();
+        MessageRouter router = new MessageRouter()
+            .onStatus(key("RoomAnalytics"), RoomAnalytics.class,
+                      (message, key, analytics) -> calls.add(key + " " + analytics))
+            .onStatus(key("RoomAnalytics.*"), Object.class, (message, key, value) -> calls.add(key + " = " + value));
+
+        WebhookStatusMessage status = new WebhookStatusMessage(
+            "device", "workspace", "org", "app", Instant.now(),
+            new WebhookStatusChanges(Map.of(
+                key("RoomAnalytics.PeopleCount.Current"), IntNode.valueOf(4),
+                key("RoomAnalytics.AmbientNoise.Level.A"), IntNode.valueOf(30),
+                key("Audio.Volume"), IntNode.valueOf(50)
+            ), Set.of()),
+            false);
+        router.accept(List.of(status));
+
+        assertThat(calls).containsExactlyInAnyOrder(
+            "RoomAnalytics RoomAnalytics[peopleCount={Current=4}, ambientNoise={Level={A=30}}]",
+            "RoomAnalytics.PeopleCount.Current = 4",
+            "RoomAnalytics.AmbientNoise.Level.A = 30");
+    }
+
+    public record RoomAnalytics(Map<String, Object> peopleCount, Map<String, Object> ambientNoise) {
+        @JsonCreator
+        public RoomAnalytics(@JsonProperty("PeopleCount") Map<String, Object> peopleCount,
+                             @JsonProperty("AmbientNoise") Map<String, Object> ambientNoise) {
+            this.peopleCount = peopleCount;
+            this.ambientNoise = ambientNoise;
+        }
+    }
+}
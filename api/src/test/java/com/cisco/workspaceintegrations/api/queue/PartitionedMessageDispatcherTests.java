@@ -0,0 +1,147 @@
+package com.cisco.workspaceintegrations.api.queue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import org.testng.annotations.Test;
+
+import com.cisco.workspaceintegrations.common.messages.Message;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage.WebhookStatusChanges;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PartitionedMessageDispatcherTests {
+
+    @Test
+    public void testMessagesAreProcessedInOrderPerDevice() throws Exception {
+        Map<String, List<Instant>> received = new ConcurrentHashMap<>();
+        Map<String, Set<String>> workers = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(200);
+        PartitionedMessageDispatcher dispatcher = PartitionedMessageDispatcher.builder(messages -> {
+            for (Message message : messages) {
+                WebhookStatusMessage status = (WebhookStatusMessage) message;
+                received.computeIfAbsent(status.deviceId(), id -> new ArrayList<>()).add(status.timestamp());
+                workers.computeIfAbsent(status.deviceId(), id -> ConcurrentHashMap.newKeySet())
+                       .add(Thread.currentThread().getName());
+                done.countDown();
+            }
+        }).partitions(4).queueCapacity(8).maxBatchSize(3).build();
+
+        List<Message> batch = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            batch.add(statusMessage("device-" + (i % 10), Instant.ofEpochSecond(i)));
+        }
+        dispatcher.accept(batch);
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        dispatcher.close();
+        assertThat(received).hasSize(10);
+        received.values().forEach(timestamps -> assertThat(timestamps).hasSize(20).isSorted());
+        // Each device sticks to one worker, while the devices are spread over several
+        workers.values().forEach(names -> assertThat(names).hasSize(1));
+        assertThat(workers.values().stream().flatMap(Set::stream).distinct().count()).isGreaterThan(1);
+    }
+
+    @Test
+    public void testFullPartitionBlocksTheCaller() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Message> received = new CopyOnWriteArrayList<>();
+        PartitionedMessageDispatcher dispatcher = PartitionedMessageDispatcher.builder(messages -> {
+            entered.countDown();
+            awaitUninterruptibly(release);
+            received.addAll(messages);
+        }).partitions(1).queueCapacity(2).maxBatchSize(1).build();
+
+        Thread caller = new Thread(() -> dispatcher.accept(statusMessages(4)));
+        caller.start();
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        // One message is being processed, two fill the partition and the last one holds the caller back
+        awaitCondition(() -> dispatcher.getBacklog() == 2 && caller.getState() == Thread.State.TIMED_WAITING);
+        assertThat(caller.isAlive()).isTrue();
+
+        release.countDown();
+        caller.join(5000);
+        assertThat(caller.isAlive()).isFalse();
+        awaitCondition(() -> received.size() == 4);
+        dispatcher.close();
+    }
+
+    @Test
+    public void testCloseReleasesACallerBlockedOnAFullPartition() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Message> received = new CopyOnWriteArrayList<>();
+        PartitionedMessageDispatcher dispatcher = PartitionedMessageDispatcher.builder(messages -> {
+            entered.countDown();
+            awaitUninterruptibly(release);
+            received.addAll(messages);
+        }).partitions(1).queueCapacity(1).maxBatchSize(1).shutdownTimeout(Duration.ofSeconds(5)).build();
+
+        List<Message> messages = statusMessages(3);
+        AtomicReference<Throwable> callerError = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                dispatcher.accept(messages);
+            } catch (Throwable ex) {
+                callerError.set(ex);
+            }
+        });
+        caller.start();
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitCondition(() -> dispatcher.getBacklog() == 1 && caller.getState() == Thread.State.TIMED_WAITING);
+
+        Thread closer = new Thread(dispatcher::close);
+        closer.start();
+        caller.join(5000);
+        assertThat(caller.isAlive()).isFalse();
+        assertThat(callerError.get()).isNull();
+
+        // The queued message is still processed, the one the caller was blocked on is dropped
+        release.countDown();
+        closer.join(5000);
+        assertThat(received).containsExactlyElementsOf(messages.subList(0, 2));
+        dispatcher.accept(statusMessages(1));
+        assertThat(dispatcher.getBacklog()).isZero();
+    }
+
+    private static List<Message> statusMessages(int count) {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(statusMessage("device", Instant.ofEpochSecond(i)));
+        }
+        return messages;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+            Thread.yield();
+        }
+    }
+
+    private static WebhookStatusMessage statusMessage(String deviceId, Instant timestamp) {
+        return new WebhookStatusMessage(deviceId, "workspace", "org", "app", timestamp,
+                                        new WebhookStatusChanges(Map.of(), Set.of()), false);
+    }
+}
@@ -5,6 +5,7 @@ import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,6 +22,12 @@ public class MockHttp extends Http {
     }
 
     public static HttpResponse<Object> mockResponse(Object body, int statusCode) {
+        return mockResponse(body, statusCode, Map.of());
+    }
+
+    public static HttpResponse<Object> mockResponse(Object body, int statusCode, Map<String, List<String>> headers) {
+        Map<String, List<String>> allHeaders = new HashMap<>(headers);
+        allHeaders.put("TrackingID", List.of("MockTrackingId"));
         return new HttpResponse<>() {
             @Override
             public int statusCode() {
@@ -39,7 +46,7 @@ public class MockHttp extends Http {
 
             @Override
             public HttpHeaders headers() {
-                return HttpHeaders.of(Map.of("TrackingID", List.of("MockTrackingId")), (a, b) -> true);
+                return HttpHeaders.of(allHeaders, (a, b) -> true);
             }
 
             @Override
@@ -0,0 +1,139 @@
+package com.cisco.workspaceintegrations.api.xapi;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.cisco.workspaceintegrations.api.http.HttpException;
+import com.cisco.workspaceintegrations.common.xapi.CommandResponse;
+import com.cisco.workspaceintegrations.common.xapi.Key;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkCommandExecutorTests {
+
+    private static final Key COMMAND = Key.key("Message.Send");
+    private static final URI COMMAND_URI = URI.create("https://webexapis.com/v1/xapi/command/Message.Send");
+
+    private XAPI xapi;
+    private BlockingQueue<CompletableFuture<CommandResponse>> sent;
+    private AtomicInteger inFlight;
+    private AtomicInteger maxInFlight;
+
+    @BeforeMethod
+    public void setUp() {
+        xapi = mock(XAPI.class);
+        sent = new LinkedBlockingQueue<>();
+        inFlight = new AtomicInteger();
+        maxInFlight = new AtomicInteger();
+        when(xapi.executeCommandAsync(eq(COMMAND), any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<CommandResponse> future = new CompletableFuture<>();
+            sent.add(future);
+            return future;
+        });
+    }
+
+    @Test
+    public void testConcurrencyIsCapped() throws Exception {
+        BulkCommandExecutor executor = BulkCommandExecutor.builder(xapi).concurrency(2).build();
+        CompletableFuture<BulkCommandSummary> summary = executeAsync(executor, List.of("a", "b", "c", "d", "e"));
+
+        CompletableFuture<CommandResponse> oldest = sent.poll(5, TimeUnit.SECONDS);
+        for (int i = 1; i < 5; i++) {
+            // The next command is sent while the oldest is pending, the one after only once it completes
+            CompletableFuture<CommandResponse> next = sent.poll(5, TimeUnit.SECONDS);
+            respond(oldest);
+            oldest = next;
+        }
+        respond(oldest);
+        assertThat(summary.get(5, TimeUnit.SECONDS).succeeded()).isEqualTo(5);
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testTimedOutCommandHoldsItsPermitUntilTheRequestCompletes() throws Exception {
+        BulkCommandExecutor executor = BulkCommandExecutor.builder(xapi)
+                                                          .concurrency(1)
+                                                          .timeout(Duration.ofMillis(10))
+                                                          .build();
+        CountDownLatch timedOut = new CountDownLatch(1);
+        AtomicInteger timeouts = new AtomicInteger();
+        CompletableFuture<BulkCommandSummary> summary = executeAsync(executor, List.of("a", "b"), (result, done, total) -> {
+            if (result.error() instanceof TimeoutException) {
+                timeouts.incrementAndGet();
+                timedOut.countDown();
+            }
+        });
+
+        CompletableFuture<CommandResponse> first = sent.poll(5, TimeUnit.SECONDS);
+        assertThat(timedOut.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(xapi, times(1)).executeCommandAsync(any(), any());
+
+        first.complete(new CommandResponse("a", Map.of(), null));
+        sent.poll(5, TimeUnit.SECONDS).complete(new CommandResponse("b", Map.of(), null));
+        BulkCommandSummary result = summary.get(5, TimeUnit.SECONDS);
+        assertThat(timeouts.get()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(result.succeeded()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSummaryCountsThrottledAsFailed() throws Exception {
+        BulkCommandExecutor executor = BulkCommandExecutor.builder(xapi).concurrency(4).build();
+        CompletableFuture<BulkCommandSummary> summary = executeAsync(executor, List.of("a", "b", "c", "d"));
+
+        sent.poll(5, TimeUnit.SECONDS).complete(new CommandResponse("a", Map.of(), null));
+        sent.poll(5, TimeUnit.SECONDS).completeExceptionally(new HttpException(429, "POST", "Slow down", COMMAND_URI, "id"));
+        sent.poll(5, TimeUnit.SECONDS).completeExceptionally(new HttpException(429, "POST", "Slow down", COMMAND_URI, "id"));
+        sent.poll(5, TimeUnit.SECONDS).completeExceptionally(new HttpException(500, "POST", "Oops", COMMAND_URI, "id"));
+
+        BulkCommandSummary result = summary.get(5, TimeUnit.SECONDS);
+        assertThat(result.total()).isEqualTo(4);
+        assertThat(result.succeeded()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(3);
+        assertThat(result.throttled()).isEqualTo(2);
+        assertThat(result.p99()).isGreaterThanOrEqualTo(result.p50());
+    }
+
+    private void respond(CompletableFuture<CommandResponse> command) {
+        inFlight.decrementAndGet();
+        command.complete(new CommandResponse("device", Map.of(), null));
+    }
+
+    private static CompletableFuture<BulkCommandSummary> executeAsync(BulkCommandExecutor executor, List<String> deviceIds) {
+        return executeAsync(executor, deviceIds, (result, done, total) -> { });
+    }
+
+    private static CompletableFuture<BulkCommandSummary> executeAsync(BulkCommandExecutor executor,
+                                                                      List<String> deviceIds,
+                                                                      BulkCommandListener listener) {
+        CompletableFuture<BulkCommandSummary> summary = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                summary.complete(executor.execute(COMMAND, Map.of(), deviceIds, listener));
+            } catch (InterruptedException ex) {
+                summary.completeExceptionally(ex);
+            }
+        });
+        thread.start();
+        return summary;
+    }
+}
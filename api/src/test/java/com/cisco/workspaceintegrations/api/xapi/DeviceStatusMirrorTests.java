@@ -0,0 +1,62 @@
+package com.cisco.workspaceintegrations.api.xapi;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.testng.annotations.Test;
+
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage;
+import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage.WebhookStatusChanges;
+import com.cisco.workspaceintegrations.common.xapi.Key;
+
+import static com.cisco.workspaceintegrations.common.xapi.Key.key;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeviceStatusMirrorTests {
+
+    @Test
+    public void testChangesAreApplied() {
+        DeviceStatusMirror mirror = new DeviceStatusMirror();
+        Instant now = Instant.now();
+        mirror.accept(List.of(
+            status(now, true, Map.of(
+                key("RoomAnalytics.PeopleCount.Current"), IntNode.valueOf(2),
+                key("Peripherals.ConnectedDevice[1003].Name"), TextNode.valueOf("Room Navigator"),
+                key("Peripherals.ConnectedDevice[1003].Status"), TextNode.valueOf("Connected")
+            ), Set.of()),
+            status(now.plusSeconds(1), false, Map.of(key("RoomAnalytics.PeopleCount.Current"), IntNode.valueOf(5)),
+                   Set.of(key("Peripherals.ConnectedDevice[1003]")))
+        ));
+
+        assertThat(mirror.isMirrored("device")).isTrue();
+        assertThat(mirror.getObject("device", key("RoomAnalytics.PeopleCount.Current"), Integer.class)).contains(5);
+        assertThat(mirror.get("device", key("Peripherals.ConnectedDevice[1003].Name"))).isEmpty();
+        assertThat(mirror.getAll("device")).hasSize(1);
+    }
+
+    @Test
+    public void testFullSyncReplacesStatus() {
+        DeviceStatusMirror mirror = new DeviceStatusMirror();
+        Instant now = Instant.now();
+        mirror.accept(List.of(
+            status(now, false, Map.of(key("Standby.State"), TextNode.valueOf("Standby")), Set.of()),
+            status(now.plusSeconds(2), true, Map.of(key("Audio.Volume"), IntNode.valueOf(50)), Set.of()),
+            status(now.plusSeconds(1), false, Map.of(key("Audio.Volume"), IntNode.valueOf(70)), Set.of())
+        ));
+
+        assertThat(mirror.get("device", key("Standby.State"))).isEmpty();
+        assertThat(mirror.get("device", key("Audio.Volume"))).contains(IntNode.valueOf(50));
+        assertThat(mirror.isMirrored("other")).isFalse();
+    }
+
+    private static WebhookStatusMessage status(Instant timestamp, boolean fullSync, Map<Key, JsonNode> updated, Set<Key> removed) {
+        return new WebhookStatusMessage(
+            "device", "workspace", "org", "app", timestamp, new WebhookStatusChanges(updated, removed), fullSync
+        );
+    }
+}
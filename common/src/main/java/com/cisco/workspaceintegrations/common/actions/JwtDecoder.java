@@ -13,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.cisco.workspaceintegrations.common.integration.XapiAccessKeys;
+import com.cisco.workspaceintegrations.common.jfr.JwtVerificationEvent;
 import com.cisco.workspaceintegrations.common.json.Json;
 import com.cisco.workspaceintegrations.common.jwt.JWKSetJWSVerificationKeys;
 import com.cisco.workspaceintegrations.common.jwt.JWKSetProvider;
@@ -48,6 +49,14 @@ public class JwtDecoder {
         }
     }
 
+    /**
+     * The URL of the key set verifying the JWTs of a region, falling back to us-east-2_a for unknown regions
+     */
+    public static URI keySetUrl(String region) {
+        URI keySetUrl = region == null ? null : REGIONAL_KEY_SET_URLS.get(region);
+        return keySetUrl != null ? keySetUrl : REGIONAL_KEY_SET_URLS.get("us-east-2_a");
+    }
+
     public void setDefaultRegion(String defaultRegion) {
         LOG.info("Default region: " + defaultRegion);
         this.defaultRegion = defaultRegion;
@@ -91,6 +100,20 @@ public class JwtDecoder {
     }
 
     private JWT.VerifiedJWS getVerifiedJWS(String jwt) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        boolean fetchKeySet = this.verificationKeys == null;
+        boolean success = false;
+        try {
+            JWT.VerifiedJWS verified = verify(jwt);
+            success = true;
+            return verified;
+        } finally {
+            event.complete(fetchKeySet, success);
+        }
+    }
+
+    private JWT.VerifiedJWS verify(String jwt) {
         JWT.VerifiedJWS verified;
         if (this.verificationKeys == null) {
             verified = JWT.jws(jwt);
@@ -0,0 +1,31 @@
+package com.cisco.workspaceintegrations.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Verifying the signature of an action JWT, which includes fetching the key set on first use
+ */
+@Name("com.cisco.workspaceintegrations.JwtVerification")
+@Label("JWT Verification")
+@Category({"Webex Workspace Integrations", "JWT"})
+public final class JwtVerificationEvent extends jdk.jfr.Event {
+
+    @Label("Key Set Fetched")
+    @Description("Whether the verification keys were fetched as part of the verification")
+    private boolean keySetFetched;
+
+    @Label("Success")
+    private boolean success;
+
+    public void complete(boolean fetchedKeySet, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            keySetFetched = fetchedKeySet;
+            success = succeeded;
+            commit();
+        }
+    }
+}
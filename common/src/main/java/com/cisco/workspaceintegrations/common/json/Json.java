@@ -1,15 +1,20 @@
 package com.cisco.workspaceintegrations.common.json;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.BeanDescription;
@@ -81,6 +86,41 @@ public final class Json {
         return objectMapper().convertValue(json, type);
     }
 
+    /**
+     * Streams the elements of a top level array field, say the <i>items</i> of a list response, to the consumer one
+     * by one as they are parsed. Neither the full json text nor the full list of items is ever held in memory.
+     * Other top level fields are skipped.
+     *
+     * @return The number of items passed to the consumer
+     * @throws IllegalArgumentException If the json is malformed or does not match the item type
+     * @throws UncheckedIOException If reading the stream fails
+     */
+    public static <T> int readArrayItems(InputStream json, String arrayField, Class<T> itemType, Consumer<? super T> consumer) {
+        int count = 0;
+        try (JsonParser parser = objectMapper().getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a json object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (arrayField.equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        consumer.accept(objectMapper().readValue(parser, itemType));
+                        count++;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return count;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Unable to de-serialize json stream after " + count + " item(s)", ex);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read json stream after " + count + " item(s)", ex);
+        }
+    }
+
     public static Optional<MatchingNode> getMatchingNode(JsonNode node, String... elements) {
         return getMatchingNodes(node, elements).stream().findFirst();
     }
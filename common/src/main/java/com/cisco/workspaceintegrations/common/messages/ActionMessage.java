@@ -3,6 +3,9 @@ package com.cisco.workspaceintegrations.common.messages;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.cisco.workspaceintegrations.common.actions.Action;
+import com.cisco.workspaceintegrations.common.actions.JwtDecoder;
+
 import static java.util.Objects.requireNonNull;
 
 public final class ActionMessage extends Message {
@@ -10,6 +13,7 @@ public final class ActionMessage extends Message {
     public static final String MESSAGE_TYPE = "action";
 
     private final String jwt;
+    private transient volatile Action action;
 
     @JsonCreator
     public ActionMessage(@JsonProperty("jwt") String jwt) {
@@ -20,6 +24,18 @@ public final class ActionMessage extends Message {
         return jwt;
     }
 
+    /**
+     * Decodes the action of the JWT on first use, so the consumers of this message share the verified action
+     */
+    public Action decodeAction(JwtDecoder jwtDecoder) {
+        Action decoded = action;
+        if (decoded == null) {
+            decoded = jwtDecoder.decodeAction(jwt);
+            action = decoded;
+        }
+        return decoded;
+    }
+
     @Override
     public String type() {
         return MESSAGE_TYPE;
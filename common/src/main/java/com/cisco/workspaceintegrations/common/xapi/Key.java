@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -295,7 +296,7 @@ public final class Key implements Comparable<Key> {
                     return true;
                 }
             } else {
-                if (!Objects.equals(thisSegment.value().toLowerCase(), otherSegment.value().toLowerCase())) {
+                if (!Objects.equals(thisSegment.normalizedValue, otherSegment.normalizedValue)) {
                     return false;
                 }
                 if (thisSegment.isArray() != otherSegment.isArray()) {
@@ -472,11 +473,13 @@ public final class Key implements Comparable<Key> {
     public static final class Segment {
 
         private final String value;
+        private final String normalizedValue;
         private final Optional<ArraySpecification> arraySpecification;
 
         private Segment(String value, Optional<ArraySpecification> arraySpecification) {
             // For reasons of speed this value is not checked for validity. This is done in the parser.
             this.value = checkNotNull(value);
+            this.normalizedValue = value.toLowerCase(Locale.ROOT);
             this.arraySpecification = checkNotNull(arraySpecification);
             if (Objects.equals(value, WILDCARD_TOKEN)) {
                 checkArgument(
@@ -490,6 +493,13 @@ public final class Key implements Comparable<Key> {
             return value;
         }
 
+        /**
+         * The lower case value, which segments are compared on
+         */
+        String normalizedValue() {
+            return normalizedValue;
+        }
+
         public boolean isAbsolute() {
             return !isSegmentWildcard()
                 && (!isArray() || array().isAbsolute());
@@ -524,7 +534,7 @@ public final class Key implements Comparable<Key> {
 
         @Override
         public int hashCode() {
-            return value.toLowerCase().hashCode();
+            return normalizedValue.hashCode();
         }
 
         @Override
@@ -534,7 +544,7 @@ public final class Key implements Comparable<Key> {
             }
             if (obj instanceof Segment) {
                 Segment other = (Segment) obj;
-                return Objects.equals(value.toLowerCase(), other.value.toLowerCase())
+                return Objects.equals(normalizedValue, other.normalizedValue)
                     && Objects.equals(arraySpecification, other.arraySpecification);
             }
             return false;
@@ -642,7 +652,7 @@ public final class Key implements Comparable<Key> {
             throw new IllegalStateException("Check 'isBoundRange' before use");
         }
 
-        private boolean captures(ArraySpecification other, boolean includeOverlaps) {
+        boolean captures(ArraySpecification other, boolean includeOverlaps) {
             if (isWildcard()) {
                 return true;
             }
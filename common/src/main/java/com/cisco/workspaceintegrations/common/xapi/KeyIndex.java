@@ -0,0 +1,171 @@
+package com.cisco.workspaceintegrations.common.xapi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cisco.workspaceintegrations.common.xapi.Key.ArraySpecification;
+import com.cisco.workspaceintegrations.common.xapi.Key.Segment;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An immutable index of subscription keys, which may contain wildcards and array ranges, to values.
+ * <p>
+ * The keys are compiled into a trie of segments, so finding the values of all keys that enclose an absolute key
+ * costs in the order of the depth of the key, rather than the number of subscriptions. A key matches exactly when
+ * {@link Key#encloses(Key)} would.
+ *
+ * @param <T> The value type, typically a subscription or handler
+ */
+public final class KeyIndex<T> {
+
+    private final Node<T> root;
+    private final int size;
+
+    private KeyIndex(Builder<T> builder) {
+        this.root = builder.root;
+        this.size = builder.size;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * All values whose key encloses the given absolute key, in the order they were added
+     */
+    public List<T> match(Key absoluteKey) {
+        List<Entry<T>> matches = new ArrayList<>();
+        collect(root, absoluteKey.segments(), 0, matches);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        if (matches.size() > 1) {
+            matches.sort((a, b) -> Integer.compare(a.order, b.order));
+        }
+        List<T> values = new ArrayList<>(matches.size());
+        for (Entry<T> match : matches) {
+            values.add(match.value);
+        }
+        return values;
+    }
+
+    /**
+     * If any key encloses the given absolute key
+     */
+    public boolean matchesAny(Key absoluteKey) {
+        return !match(absoluteKey).isEmpty();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static <T> void collect(Node<T> node, List<Segment> segments, int depth, List<Entry<T>> matches) {
+        if (depth == segments.size()) {
+            matches.addAll(node.terminal);
+            return;
+        }
+        // A trailing wildcard encloses any remaining segments
+        matches.addAll(node.trailingWildcard);
+        if (node.wildcard != null) {
+            collect(node.wildcard, segments, depth + 1, matches);
+        }
+        Segment segment = segments.get(depth);
+        if (segment.isArray()) {
+            List<ArrayEdge<T>> edges = node.arrays.get(segment.normalizedValue());
+            if (edges != null) {
+                for (ArrayEdge<T> edge : edges) {
+                    if (edge.array.captures(segment.array(), false)) {
+                        collect(edge.node, segments, depth + 1, matches);
+                    }
+                }
+            }
+        } else {
+            Node<T> child = node.children.get(segment.normalizedValue());
+            if (child != null) {
+                collect(child, segments, depth + 1, matches);
+            }
+        }
+    }
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> children = new HashMap<>();
+        private final Map<String, List<ArrayEdge<T>>> arrays = new HashMap<>();
+        private final List<Entry<T>> terminal = new ArrayList<>(1);
+        private final List<Entry<T>> trailingWildcard = new ArrayList<>(1);
+        private Node<T> wildcard;
+    }
+
+    private record ArrayEdge<T>(ArraySpecification array, Node<T> node) {
+    }
+
+    private record Entry<T>(T value, int order) {
+    }
+
+    public static final class Builder<T> {
+        private final Node<T> root = new Node<>();
+        private int size;
+        private boolean built;
+
+        private Builder() {
+        }
+
+        public Builder<T> add(Key key, T value) {
+            checkNotNull(key);
+            checkNotNull(value);
+            if (built) {
+                throw new IllegalStateException("The index has already been built");
+            }
+            List<Segment> segments = key.segments();
+            Node<T> node = root;
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                if (segment.isSegmentWildcard()) {
+                    if (i == segments.size() - 1) {
+                        node.trailingWildcard.add(new Entry<>(value, size++));
+                        return this;
+                    }
+                    if (node.wildcard == null) {
+                        node.wildcard = new Node<>();
+                    }
+                    node = node.wildcard;
+                } else if (segment.isArray()) {
+                    node = arrayChild(node, segment);
+                } else {
+                    node = node.children.computeIfAbsent(segment.normalizedValue(), name -> new Node<>());
+                }
+            }
+            node.terminal.add(new Entry<>(value, size++));
+            return this;
+        }
+
+        public Builder<T> addAll(Map<Key, ? extends T> values) {
+            values.forEach(this::add);
+            return this;
+        }
+
+        public KeyIndex<T> build() {
+            built = true;
+            return new KeyIndex<>(this);
+        }
+
+        private static <T> Node<T> arrayChild(Node<T> node, Segment segment) {
+            List<ArrayEdge<T>> edges = node.arrays.computeIfAbsent(segment.normalizedValue(), name -> new ArrayList<>(1));
+            for (ArrayEdge<T> edge : edges) {
+                if (edge.array.equals(segment.array())) {
+                    return edge.node;
+                }
+            }
+            ArrayEdge<T> edge = new ArrayEdge<>(segment.array(), new Node<>());
+            edges.add(edge);
+            return edge.node;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.cisco.workspaceintegrations.common.xapi;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+import static com.cisco.workspaceintegrations.common.xapi.Key.key;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeyIndexTests {
+
+    private static final List<String> SUBSCRIPTIONS = List.of(
+        "Audio.Volume",
+        "audio.*",
+        "*",
+        "RoomAnalytics.PeopleCount.Current",
+        "RoomAnalytics.*.Current",
+        "Peripherals.ConnectedDevice[*].RoomAnalytics.*",
+        "Peripherals.ConnectedDevice[2..n].Name",
+        "Peripherals.ConnectedDevice[1..2].Name",
+        "Peripherals.ConnectedDevice[3].Name",
+        "Audio.Input.Connectors.Microphone[1].Mute"
+    );
+
+    private static final List<String> STATUS_KEYS = List.of(
+        "Audio.Volume",
+        "AUDIO.VOLUME",
+        "Audio",
+        "Audio.Input.Connectors.Microphone[1].Mute",
+        "Audio.Input.Connectors.Microphone[2].Mute",
+        "RoomAnalytics.PeopleCount.Current",
+        "RoomAnalytics.PeopleCount.Capacity",
+        "RoomAnalytics.Sound.Current",
+        "Peripherals.ConnectedDevice[1].Name",
+        "Peripherals.ConnectedDevice[3].Name",
+        "Peripherals.ConnectedDevice[5].RoomAnalytics.AirQuality.Index",
+        "Standby.State"
+    );
+
+    @Test
+    public void testMatchesLikeEncloses() {
+        KeyIndex.Builder<String> builder = KeyIndex.builder();
+        SUBSCRIPTIONS.forEach(subscription -> builder.add(key(subscription), subscription));
+        KeyIndex<String> index = builder.build();
+        assertThat(index.size()).isEqualTo(SUBSCRIPTIONS.size());
+
+        for (String status : STATUS_KEYS) {
+            List<String> expected = SUBSCRIPTIONS.stream()
+                                                 .filter(subscription -> key(subscription).encloses(key(status)))
+                                                 .collect(Collectors.toList());
+            assertThat(index.match(key(status))).as(status).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void testNoMatches() {
+        KeyIndex<String> index = KeyIndex.<String>builder().add(key("Standby.State"), "standby").build();
+        assertThat(index.matchesAny(key("Standby.State"))).isTrue();
+        assertThat(index.matchesAny(key("Standby"))).isFalse();
+        assertThat(index.matchesAny(key("Standby.State.Other"))).isFalse();
+    }
+}
@@ -4,11 +4,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.cisco.workspaceintegrations.api.devices.DeviceCache;
+import com.cisco.workspaceintegrations.api.queue.MessageRouter;
 import com.cisco.workspaceintegrations.api.queue.QueuePoller;
 import com.cisco.workspaceintegrations.common.devices.events.CallDisconnect;
 import com.cisco.workspaceintegrations.common.devices.events.RatingResponse;
-import com.cisco.workspaceintegrations.common.json.Json;
-import com.cisco.workspaceintegrations.common.messages.WebhookEventsMessage;
 import com.cisco.workspaceintegrations.common.oauth.OAuthClient;
 import com.cisco.workspaceintegrations.common.xapi.CommandRequest;
 import com.cisco.workspaceintegrations.examples.common.Example;
@@ -36,38 +35,29 @@ public class CallSatisfactionSurvey extends Example {
     @Override
     protected void start() {
         DeviceCache deviceCache = new DeviceCache(integration.getDevicesApi());
-        QueuePoller poller = integration.getQueuePoller((messages -> {
-            LOG.info("Received messages: " + messages);
-            messages.forEach((message -> {
-                if (message instanceof WebhookEventsMessage eventsMessage) {
-                    eventsMessage.events().forEach(event -> {
-                        if (event.key().equals(CALL_DISCONNECT)) {
-                            var callDisconnect = Json.fromJsonNode(event.valueAsJson(), CallDisconnect.class);
-                            if (callDisconnect.getDurationInSeconds() > 10) {
-                                LOG.info("Show survey on call disconnect");
-                                integration.getXapi().executeCommand(
-                                    key("UserInterface.Message.Rating.Display"),
-                                    new CommandRequest(
-                                        eventsMessage.deviceId(),
-                                        arguments(
-                                            "Title", "Call Satisfaction Survey",
-                                            "Text", "How would you rate the quality of your call?",
-                                            "Duration", 10,
-                                            "FeedbackId", eventsMessage.deviceId()
-                                        )
-                                    )
-                                );
-                            }
-                        }
-                        if (event.key().equals(UI_MESSAGE_RATING_RESPONSE)) {
-                            var response = Json.fromJsonNode(event.valueAsJson(), RatingResponse.class);
-                            var device = deviceCache.get(response.getFeedbackId());
-                            LOG.info("Got call rating response from \"{}\": {}", device.getDisplayName(), response.getRating());
-                        }
-                    });
+        MessageRouter router = new MessageRouter()
+            .onEvent(CALL_DISCONNECT, CallDisconnect.class, (eventsMessage, event, callDisconnect) -> {
+                if (callDisconnect.getDurationInSeconds() > 10) {
+                    LOG.info("Show survey on call disconnect");
+                    integration.getXapi().executeCommand(
+                        key("UserInterface.Message.Rating.Display"),
+                        new CommandRequest(
+                            eventsMessage.deviceId(),
+                            arguments(
+                                "Title", "Call Satisfaction Survey",
+                                "Text", "How would you rate the quality of your call?",
+                                "Duration", 10,
+                                "FeedbackId", eventsMessage.deviceId()
+                            )
+                        )
+                    );
                 }
-            }));
-        }));
+            })
+            .onEvent(UI_MESSAGE_RATING_RESPONSE, RatingResponse.class, (eventsMessage, event, response) -> {
+                var device = deviceCache.get(response.getFeedbackId());
+                LOG.info("Got call rating response from \"{}\": {}", device.getDisplayName(), response.getRating());
+            });
+        QueuePoller poller = integration.getQueuePoller(router);
         poller.start();
     }
 }
@@ -3,9 +3,9 @@ package com.cisco.workspaceintegrations.examples.roomcapacitymonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.cisco.workspaceintegrations.api.queue.MessageRouter;
 import com.cisco.workspaceintegrations.api.queue.QueuePoller;
 import com.cisco.workspaceintegrations.api.workspaces.WorkspaceCache;
-import com.cisco.workspaceintegrations.common.messages.WebhookStatusMessage;
 import com.cisco.workspaceintegrations.common.oauth.OAuthClient;
 import com.cisco.workspaceintegrations.common.workspaces.Workspace;
 import com.cisco.workspaceintegrations.common.xapi.CommandRequest;
@@ -26,32 +26,25 @@ public class RoomCapacityMonitor extends Example {
     @Override
     protected void start() {
         WorkspaceCache workspaceCache = new WorkspaceCache(integration.getWorkspacesApi());
-        QueuePoller poller = integration.getQueuePoller((messages -> {
-            LOG.info("Received messages: " + messages);
-            messages.forEach((message -> {
-                if (message instanceof WebhookStatusMessage statusMessage) {
-                    statusMessage.getUpdatedIntegerValue(ROOM_ANALYTICS_PEOPLE_COUNT)
-                                 .ifPresent(peopleCount -> {
-                                     LOG.info("People count updated to {} for device {}", peopleCount, statusMessage.deviceId());
-                                     Workspace workspace = workspaceCache.get(statusMessage.workspaceId());
-                                     if (workspace.hasCapacity() && peopleCount > workspace.getCapacity()) {
-                                         LOG.info("Capacity exceeded, showing message on screen");
-                                         integration.getXapi().executeCommand(
-                                             key("UserInterface.Message.Alert.Display"),
-                                             new CommandRequest(
-                                                 statusMessage.deviceId(),
-                                                 arguments(
-                                                     "Title", "Playtime demo",
-                                                     "Text", "Number of people exceeds room capacity",
-                                                     "Duration", 10
-                                                 )
-                                             )
-                                         );
-                                     }
-                                 });
-                }
-            }));
-        }));
+        MessageRouter router = new MessageRouter().onStatus(ROOM_ANALYTICS_PEOPLE_COUNT, Integer.class, (statusMessage, key, peopleCount) -> {
+            LOG.info("People count updated to {} for device {}", peopleCount, statusMessage.deviceId());
+            Workspace workspace = workspaceCache.get(statusMessage.workspaceId());
+            if (workspace.hasCapacity() && peopleCount > workspace.getCapacity()) {
+                LOG.info("Capacity exceeded, showing message on screen");
+                integration.getXapi().executeCommand(
+                    key("UserInterface.Message.Alert.Display"),
+                    new CommandRequest(
+                        statusMessage.deviceId(),
+                        arguments(
+                            "Title", "Playtime demo",
+                            "Text", "Number of people exceeds room capacity",
+                            "Duration", 10
+                        )
+                    )
+                );
+            }
+        });
+        QueuePoller poller = integration.getQueuePoller(router);
         poller.start();
     }
 }